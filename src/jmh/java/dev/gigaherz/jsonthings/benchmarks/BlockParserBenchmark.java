@@ -0,0 +1,41 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import com.google.gson.JsonObject;
+import dev.gigaherz.jsonthings.things.builders.BlockBuilder;
+import dev.gigaherz.jsonthings.things.parsers.BlockParser;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.eventbus.api.BusBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockParserBenchmark
+{
+    @Param({"16", "256"})
+    public int shapeCount;
+
+    private BlockParser parser;
+    private JsonObject data;
+    private ResourceLocation key;
+
+    @Setup
+    public void setup()
+    {
+        Bootstrapper.bootstrap();
+        parser = new BlockParser(BusBuilder.builder().build());
+        data = JsonBenchmarkData.makeBlock(shapeCount);
+        key = new ResourceLocation("benchmark", "block");
+    }
+
+    @Benchmark
+    public BlockBuilder processThing()
+    {
+        return parser.processThing(key, data);
+    }
+}
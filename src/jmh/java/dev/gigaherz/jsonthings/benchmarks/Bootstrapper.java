@@ -0,0 +1,23 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import dev.gigaherz.jsonthings.things.ThingRegistries;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+/**
+ * Initializes the vanilla registries, so that benchmarks can use blocks, items and block states outside of the game.
+ */
+public class Bootstrapper
+{
+    private static boolean initialized;
+
+    public static synchronized void bootstrap()
+    {
+        if (initialized)
+            return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        ThingRegistries.staticInit();
+        initialized = true;
+    }
+}
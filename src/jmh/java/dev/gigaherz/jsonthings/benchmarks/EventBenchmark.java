@@ -0,0 +1,83 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import dev.gigaherz.jsonthings.things.events.*;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching an event the way the Flex things do, with and without a handler for it.
+ * The handler is a plain java function, so this measures the dispatch itself and not the scripts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark
+{
+    private Runner withHandler;
+    private Runner withoutHandler;
+    private ItemStack stack;
+
+    @Setup
+    public void setup()
+    {
+        Bootstrapper.bootstrap();
+        stack = new ItemStack(Items.STICK);
+        withHandler = new Runner();
+        withHandler.addEventHandler(FlexEventType.UPDATE.getName(), (eventName, context) -> FlexEventResult.pass(context.getStack()));
+        withoutHandler = new Runner();
+    }
+
+    @Benchmark
+    public FlexEventContext buildContext()
+    {
+        return FlexEventContext.of(stack).with(FlexEventContext.SLOT, 3).with(FlexEventContext.SELECTED, true);
+    }
+
+    @Benchmark
+    public FlexEventResult runEventWithHandler()
+    {
+        return withHandler.runEvent(FlexEventType.UPDATE,
+                () -> FlexEventContext.of(stack).with(FlexEventContext.SLOT, 3).with(FlexEventContext.SELECTED, true),
+                () -> FlexEventResult.pass(stack));
+    }
+
+    @Benchmark
+    public FlexEventResult runEventWithoutHandler()
+    {
+        return withoutHandler.runEvent(FlexEventType.UPDATE,
+                () -> FlexEventContext.of(stack).with(FlexEventContext.SLOT, 3).with(FlexEventContext.SELECTED, true),
+                () -> FlexEventResult.pass(stack));
+    }
+
+    private static class Runner implements IEventRunner
+    {
+        private final FlexEventHandlers eventHandlers = new FlexEventHandlers();
+
+        @Override
+        public void addEventHandler(String eventName, FlexEventHandler eventHandler)
+        {
+            eventHandlers.put(eventName, eventHandler);
+        }
+
+        @Nullable
+        @Override
+        public FlexEventHandler getEventHandler(String eventName)
+        {
+            return eventHandlers.get(eventName);
+        }
+
+        @Nullable
+        @Override
+        public FlexEventHandler getEventHandler(FlexEventType event)
+        {
+            return eventHandlers.get(event);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import dev.gigaherz.jsonthings.util.Frakktion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrakktionBenchmark
+{
+    private Frakktion a;
+    private Frakktion b;
+
+    @Setup
+    public void setup()
+    {
+        a = new Frakktion(4, 10);
+        b = new Frakktion(2, 3);
+    }
+
+    @Benchmark
+    public Frakktion add()
+    {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Frakktion subtract()
+    {
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public Frakktion mulSimplify()
+    {
+        return a.mul(b).simplify();
+    }
+
+    @Benchmark
+    public double mixed()
+    {
+        return a.add(b).subtract(b.mul(3)).makeDivisible(16).simplify().asDouble();
+    }
+}
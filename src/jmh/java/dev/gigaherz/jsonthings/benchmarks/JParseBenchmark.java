@@ -0,0 +1,52 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import com.google.gson.JsonObject;
+import dev.gigaherz.jsonthings.util.parse.JParse;
+import dev.gigaherz.jsonthings.util.parse.value.Any;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks every value of a large block definition through JParse, the same way the parsers visit their input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JParseBenchmark
+{
+    @Param({"16", "256"})
+    public int shapeCount;
+
+    private JsonObject data;
+
+    @Setup
+    public void setup()
+    {
+        data = JsonBenchmarkData.makeBlock(shapeCount);
+    }
+
+    @Benchmark
+    public void walk(Blackhole blackhole)
+    {
+        visit(JParse.begin(data), blackhole);
+    }
+
+    private static void visit(Any any, Blackhole blackhole)
+    {
+        any
+                .ifObj(obj -> obj.forEach((key, val) -> {
+                    blackhole.consume(key);
+                    visit(val, blackhole);
+                }))
+                .ifArray(arr -> arr.forEach((i, val) -> visit(val, blackhole)))
+                .ifString(str -> str.handle(blackhole::consume))
+                .ifBool(bool -> bool.handle(blackhole::consume))
+                .ifDouble(num -> num.handle(blackhole::consume))
+                .typeError();
+    }
+}
@@ -0,0 +1,73 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Builds the block definitions used by the parsing benchmarks. The output only depends on the arguments,
+ * so results stay comparable between runs.
+ */
+public class JsonBenchmarkData
+{
+    public static JsonObject makeBlock(int shapeCount)
+    {
+        var obj = new JsonObject();
+        obj.addProperty("material", "minecraft:stone");
+        obj.addProperty("map_color", "stone");
+        obj.addProperty("requires_tool_for_drops", true);
+        obj.addProperty("destroy_time", 1.5);
+        obj.addProperty("explosion_resistance", 6.0);
+        obj.addProperty("sound_type", "minecraft:stone");
+        obj.addProperty("not_solid", true);
+        obj.addProperty("render_layer", "cutout");
+
+        var properties = new JsonObject();
+        properties.addProperty("facing", "horizontal_facing");
+        properties.addProperty("waterlogged", "waterlogged");
+        properties.addProperty("powered", "powered");
+        obj.add("properties", properties);
+
+        var defaultState = new JsonObject();
+        defaultState.addProperty("facing", "north");
+        defaultState.addProperty("waterlogged", false);
+        defaultState.addProperty("powered", false);
+        obj.add("default_state", defaultState);
+
+        obj.addProperty("shape_rotation", "facing");
+        obj.add("shape", makeConditionalShapes(shapeCount));
+
+        return obj;
+    }
+
+    /**
+     * A list of shapes, each active under a different combination of the properties from {@link #makeBlock}.
+     */
+    public static JsonArray makeConditionalShapes(int shapeCount)
+    {
+        var shapes = new JsonArray();
+        for (int i = 0; i < shapeCount; i++)
+        {
+            var when = new JsonObject();
+            when.addProperty("powered", (i & 1) != 0 ? "true" : "false");
+            when.addProperty("waterlogged", (i & 2) != 0 ? "true" : "false");
+
+            var conditional = new JsonObject();
+            conditional.add("when", when);
+            conditional.add("shape", makeBox(i % 16));
+            shapes.add(conditional);
+        }
+        return shapes;
+    }
+
+    public static JsonArray makeBox(int offset)
+    {
+        var box = new JsonArray();
+        box.add(offset * 0.5);
+        box.add(0);
+        box.add(offset * 0.5);
+        box.add(8 + offset * 0.5);
+        box.add(8);
+        box.add(8 + offset * 0.5);
+        return box;
+    }
+}
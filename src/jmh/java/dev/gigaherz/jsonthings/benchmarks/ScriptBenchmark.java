@@ -0,0 +1,53 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import dev.gigaherz.jsonthings.things.events.FlexEventContext;
+import dev.gigaherz.jsonthings.things.events.FlexEventResult;
+import dev.gigaherz.jsonthings.things.scripting.ThingScript;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.SimpleResource;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip of an event through a script: entering Rhino, wrapping the context, reading a value from it and returning a result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptBenchmark
+{
+    private static final String SCRIPT = """
+            function apply(eventName, context) {
+                if (context.slot > 4)
+                    return FlexEventResult.success(context.stack);
+                return FlexEventResult.pass(context.stack);
+            }
+            """;
+
+    private ThingScript script;
+    private FlexEventContext context;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        Bootstrapper.bootstrap();
+        var location = new ResourceLocation("benchmark", "scripts/update.js");
+        var resource = new SimpleResource("benchmark", location, new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.UTF_8)), null);
+        script = ThingScript.fromResource(resource);
+        context = FlexEventContext.of(new ItemStack(Items.STICK)).with(FlexEventContext.SLOT, 3).with(FlexEventContext.SELECTED, false);
+    }
+
+    @Benchmark
+    public FlexEventResult apply()
+    {
+        return script.apply("update", context);
+    }
+}
@@ -0,0 +1,144 @@
+package dev.gigaherz.jsonthings.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mojang.serialization.JsonOps;
+import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
+import dev.gigaherz.jsonthings.things.shapes.IShapeProvider;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.StateDefinition;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.block.state.properties.Property;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Shape lookups over every state of a block with facing, powered and waterlogged properties.
+ * Each benchmark visits all the states once per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeBenchmark
+{
+    @Param({"4", "64"})
+    public int shapeCount;
+
+    private StateDefinition<Block, BlockState> stateDefinition;
+    private List<BlockState> states;
+
+    private IShapeProvider dynamicProvider;
+    private DynamicShape warmShape;
+    private DynamicShape bakedShape;
+
+    private IShapeProvider conditionalUnbaked;
+    private IShapeProvider conditionalBaked;
+    private IShapeProvider combined;
+
+    @Setup
+    public void setup()
+    {
+        Bootstrapper.bootstrap();
+
+        stateDefinition = Blocks.LIGHTNING_ROD.getStateDefinition();
+        states = stateDefinition.getPossibleStates();
+        Function<String, Property<?>> propertyLookup = stateDefinition::getProperty;
+
+        dynamicProvider = decode(JsonBenchmarkData.makeConditionalShapes(shapeCount)).bake(propertyLookup);
+        warmShape = new DynamicShape(dynamicProvider, BlockStateProperties.FACING);
+        for (BlockState state : states)
+        {
+            warmShape.getShape(state);
+        }
+        bakedShape = new DynamicShape(dynamicProvider, BlockStateProperties.FACING).bake(stateDefinition);
+
+        var when = new JsonObject();
+        when.addProperty("powered", "true");
+        when.addProperty("waterlogged", "true");
+        when.addProperty("facing", "north");
+        var conditional = new JsonObject();
+        conditional.add("when", when);
+        conditional.add("shape", JsonBenchmarkData.makeBox(0));
+        conditionalUnbaked = decode(conditional);
+        conditionalBaked = conditionalUnbaked.bake(propertyLookup);
+
+        var boxes = new JsonArray();
+        for (int i = 0; i < shapeCount; i++)
+        {
+            boxes.add(JsonBenchmarkData.makeBox(i % 16));
+        }
+        combined = decode(boxes).bake(propertyLookup);
+    }
+
+    private static IShapeProvider decode(JsonElement json)
+    {
+        return DynamicShape.shapeCodec().decode(JsonOps.INSTANCE, json).getOrThrow(false, str -> {
+        }).getFirst();
+    }
+
+    @Benchmark
+    public void dynamicShapeCold(Blackhole blackhole)
+    {
+        var shape = new DynamicShape(dynamicProvider, BlockStateProperties.FACING);
+        for (BlockState state : states)
+        {
+            blackhole.consume(shape.getShape(state));
+        }
+    }
+
+    @Benchmark
+    public void dynamicShapeWarm(Blackhole blackhole)
+    {
+        for (BlockState state : states)
+        {
+            blackhole.consume(warmShape.getShape(state));
+        }
+    }
+
+    @Benchmark
+    public void dynamicShapeBaked(Blackhole blackhole)
+    {
+        for (BlockState state : states)
+        {
+            blackhole.consume(bakedShape.getShape(state));
+        }
+    }
+
+    @Benchmark
+    public void conditionalUnbaked(Blackhole blackhole)
+    {
+        for (BlockState state : states)
+        {
+            blackhole.consume(conditionalUnbaked.getShape(state, Direction.NORTH));
+        }
+    }
+
+    @Benchmark
+    public void conditionalBaked(Blackhole blackhole)
+    {
+        for (BlockState state : states)
+        {
+            blackhole.consume(conditionalBaked.getShape(state, Direction.NORTH));
+        }
+    }
+
+    @Benchmark
+    public void combinedShape(Blackhole blackhole)
+    {
+        for (BlockState state : states)
+        {
+            blackhole.consume(combined.getShape(state, Direction.NORTH));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dev.gigaherz.jsonthings.benchmarks.load;
+
+import dev.gigaherz.jsonthings.JsonThings;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
+import dev.gigaherz.jsonthings.benchmarks.Bootstrapper;
+import dev.gigaherz.jsonthings.things.builders.BaseBuilder;
+import dev.gigaherz.jsonthings.things.parsers.*;
+import dev.gigaherz.jsonthings.things.scripting.ScriptParser;
+import net.minecraft.Util;
+import net.minecraftforge.eventbus.api.BusBuilder;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the thingpacks from a game directory through {@link ThingResourceManager}, outside of the game,
+ * and reports the time spent in each phase and the peak heap usage.
+ *
+ * Options (all optional):
+ *   --gamedir run                   directory containing the thingpacks folder and the config
+ *   --build true                    also construct every thing from its builder, as registration would
+ */
+public class LoadHarness
+{
+    private final List<String> report = new ArrayList<>();
+    private volatile long peakHeap;
+
+    public static void main(String[] args) throws Exception
+    {
+        var options = new Options(args);
+        new LoadHarness().run(Path.of(options.getString("gamedir", "run")).toAbsolutePath(), Boolean.parseBoolean(options.getString("build", "true")));
+        System.exit(0);
+    }
+
+    public void run(Path gameDir, boolean build) throws Exception
+    {
+        var sampler = startHeapSampler();
+        long totalStart = System.nanoTime();
+
+        long start = System.nanoTime();
+        FMLPaths.loadAbsolutePaths(gameDir);
+        Bootstrapper.bootstrap();
+        phase("bootstrap", start);
+
+        start = System.nanoTime();
+        var bus = BusBuilder.builder().build();
+        JsonThingsConfig.load();
+        var manager = ThingResourceManager.initialize(bus);
+        manager.addResourceReloadListener(ScriptParser.instance());
+        JsonThings.blockParser = manager.registerParser(new BlockParser(bus));
+        JsonThings.itemParser = manager.registerParser(new ItemParser(bus));
+        JsonThings.enchantmentParser = manager.registerParser(new EnchantmentParser(bus));
+        JsonThings.foodParser = manager.registerParser(new FoodParser());
+        JsonThings.shapeParser = manager.registerParser(new ShapeParser());
+        JsonThings.tierParser = manager.registerParser(new TierParser());
+        JsonThings.blockMaterialParser = manager.registerParser(new BlockMaterialParser());
+        JsonThings.armorMaterialParser = manager.registerParser(new ArmorMaterialParser());
+        JsonThings.creativeModeTabParser = manager.registerParser(new CreativeModeTabParser());
+        phase("setup", start);
+
+        start = System.nanoTime();
+        manager.beginLoading(Util.backgroundExecutor(), Runnable::run).get();
+        phase("reload", start);
+        for (ThingParser<?> parser : manager.getThingParsers())
+        {
+            report.add(String.format(Locale.ROOT, "  %-20s %6d things, read %8.1f ms, parse %8.1f ms",
+                    parser.getThingType(), parser.getBuilders().size(),
+                    parser.getPrepareTime() / 1e6, parser.getApplyTime() / 1e6));
+        }
+
+        start = System.nanoTime();
+        manager.finishLoading();
+        phase("finish", start);
+
+        if (build)
+        {
+            start = System.nanoTime();
+            for (ThingParser<?> parser : manager.getThingParsers())
+            {
+                long parserStart = System.nanoTime();
+                parser.getBuilders().forEach(BaseBuilder::get);
+                report.add(String.format(Locale.ROOT, "  %-20s built in %8.1f ms", parser.getThingType(), (System.nanoTime() - parserStart) / 1e6));
+            }
+            phase("build", start);
+        }
+
+        phase("total", totalStart);
+
+        sampler.interrupt();
+        sampler.join();
+
+        report.add(String.format(Locale.ROOT, "peak heap: %.1f MB (sampled), %.1f MB (sum of pool peaks)",
+                peakHeap / (1024.0 * 1024.0), getPoolPeaks() / (1024.0 * 1024.0)));
+        report.forEach(System.out::println);
+    }
+
+    private void phase(String name, long start)
+    {
+        report.add(String.format(Locale.ROOT, "%-22s %10.1f ms", name, (System.nanoTime() - start) / 1e6));
+    }
+
+    private Thread startHeapSampler()
+    {
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            pool.resetPeakUsage();
+        }
+
+        var memory = ManagementFactory.getMemoryMXBean();
+        var thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                try
+                {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                }
+                catch (InterruptedException e)
+                {
+                    break;
+                }
+            }
+        }, "Heap sampler");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // The pools reach their peaks at different times, so this is an upper bound.
+    private static long getPoolPeaks()
+    {
+        long sum = 0;
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+                sum += pool.getPeakUsage().getUsed();
+        }
+        return sum;
+    }
+}
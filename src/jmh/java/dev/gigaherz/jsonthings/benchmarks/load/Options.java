@@ -0,0 +1,40 @@
+package dev.gigaherz.jsonthings.benchmarks.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal "--key value" command line parser for the load testing tools.
+ */
+class Options
+{
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            var arg = args[i];
+            if (!arg.startsWith("--") || i + 1 >= args.length)
+                throw new IllegalArgumentException("Expected '--name value' pairs, found '" + arg + "'.");
+            values.put(arg.substring(2), args[++i]);
+        }
+    }
+
+    String getString(String name, String defaultValue)
+    {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue)
+    {
+        var value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    long getLong(String name, long defaultValue)
+    {
+        var value = values.get(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+}
@@ -0,0 +1,292 @@
+package dev.gigaherz.jsonthings.benchmarks.load;
+
+import com.google.gson.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates a synthetic thingpack for load and scale testing.
+ * The output only depends on the options, so the same seed always produces the same pack.
+ *
+ * Options (all optional):
+ *   --output thingpacks/generated   directory of the generated pack
+ *   --namespace generated
+ *   --seed 0
+ *   --blocks 10000                  number of blocks
+ *   --items 50000                   number of items
+ *   --enchantments 100
+ *   --foods 100
+ *   --shapes 100                    number of shared shape files
+ *   --scripts 100
+ *   --parent_depth 8                length of the "parent" chains of blocks and items, 1 disables parents
+ *   --shape_depth 3                 nesting depth of the conditional shape trees
+ *   --shape_fanout 4                number of children at each level of the shape trees
+ */
+public class ThingpackGenerator
+{
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final String[] ITEM_TYPES = {"plain", "sword", "pickaxe", "food", "armor"};
+    private static final String[] TIERS = {"wood", "stone", "iron", "diamond", "netherite"};
+    private static final String[] ARMOR_SLOTS = {"head", "chest", "legs", "feet"};
+    private static final String[] GROUPS = {"building_blocks", "decorations", "misc", "food", "tools", "combat"};
+    private static final String[] FACINGS = {"north", "south", "east", "west"};
+
+    private final Path root;
+    private final String namespace;
+    private final Random rand;
+    private final int blocks;
+    private final int items;
+    private final int enchantments;
+    private final int foods;
+    private final int shapes;
+    private final int scripts;
+    private final int parentDepth;
+    private final int shapeDepth;
+    private final int shapeFanout;
+
+    private int fileCount;
+    private long byteCount;
+
+    public ThingpackGenerator(Options options)
+    {
+        this.root = Path.of(options.getString("output", "thingpacks/generated"));
+        this.namespace = options.getString("namespace", "generated");
+        this.rand = new Random(options.getLong("seed", 0));
+        this.blocks = options.getInt("blocks", 10000);
+        this.items = options.getInt("items", 50000);
+        this.enchantments = options.getInt("enchantments", 100);
+        this.foods = options.getInt("foods", 100);
+        this.shapes = options.getInt("shapes", 100);
+        this.scripts = options.getInt("scripts", 100);
+        this.parentDepth = Math.max(1, options.getInt("parent_depth", 8));
+        this.shapeDepth = Math.max(0, options.getInt("shape_depth", 3));
+        this.shapeFanout = Math.max(1, options.getInt("shape_fanout", 4));
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        var generator = new ThingpackGenerator(new Options(args));
+        long start = System.nanoTime();
+        generator.generate();
+        System.out.printf("Generated %d files (%.1f MB) in %s in %.2fs%n",
+                generator.fileCount, generator.byteCount / (1024.0 * 1024.0), generator.root.toAbsolutePath(), (System.nanoTime() - start) / 1e9);
+    }
+
+    public void generate() throws IOException
+    {
+        // Each thing type is generated in a fixed order from the same random source, so the output is reproducible.
+        writePackMeta();
+        for (int i = 0; i < scripts; i++)
+            writeText("scripts", "script_" + i + ".js", makeScript(i));
+        for (int i = 0; i < foods; i++)
+            writeJson("food", "food_" + i, makeFood());
+        for (int i = 0; i < shapes; i++)
+            writeJson("shape", "shape_" + i, makeShapeTree(shapeDepth));
+        for (int i = 0; i < blocks; i++)
+            writeJson("block", "block_" + i, makeBlock(i));
+        for (int i = 0; i < items; i++)
+            writeJson("item", "item_" + i, makeItem(i));
+        for (int i = 0; i < enchantments; i++)
+            writeJson("enchantment", "enchantment_" + i, makeEnchantment());
+    }
+
+    private void writePackMeta() throws IOException
+    {
+        var pack = new JsonObject();
+        pack.addProperty("description", "Generated thingpack");
+        pack.addProperty("pack_format", 7);
+        var meta = new JsonObject();
+        meta.add("pack", pack);
+        Files.createDirectories(root);
+        write(root.resolve("pack.mcmeta"), GSON.toJson(meta));
+    }
+
+    private void writeJson(String type, String name, JsonElement json) throws IOException
+    {
+        writeText(type, name + ".json", GSON.toJson(json));
+    }
+
+    private void writeText(String type, String fileName, String contents) throws IOException
+    {
+        var dir = root.resolve("things").resolve(namespace).resolve(type);
+        Files.createDirectories(dir);
+        write(dir.resolve(fileName), contents);
+    }
+
+    private void write(Path path, String contents) throws IOException
+    {
+        var bytes = contents.getBytes(StandardCharsets.UTF_8);
+        Files.write(path, bytes);
+        fileCount++;
+        byteCount += bytes.length;
+    }
+
+    private String id(String name)
+    {
+        return namespace + ":" + name;
+    }
+
+    private String makeScript(int index)
+    {
+        return "function apply(eventName, context)\n"
+                + "{\n"
+                + "    var n = " + index + ";\n"
+                + "    for (var i = 0; i < " + (1 + rand.nextInt(16)) + "; i++)\n"
+                + "        n = (n * 31 + i) % 1000;\n"
+                + "    return FlexEventResult.pass(context.stack);\n"
+                + "}\n";
+    }
+
+    private JsonObject makeFood()
+    {
+        var obj = new JsonObject();
+        obj.addProperty("nutrition", 1 + rand.nextInt(10));
+        obj.addProperty("saturation", rand.nextInt(20) / 10.0);
+        obj.addProperty("fast", rand.nextBoolean());
+        return obj;
+    }
+
+    private JsonArray makeBox()
+    {
+        int x1 = rand.nextInt(8), y1 = rand.nextInt(8), z1 = rand.nextInt(8);
+        var box = new JsonArray();
+        box.add(x1);
+        box.add(y1);
+        box.add(z1);
+        box.add(x1 + 1 + rand.nextInt(8));
+        box.add(y1 + 1 + rand.nextInt(8));
+        box.add(z1 + 1 + rand.nextInt(8));
+        return box;
+    }
+
+    /**
+     * A list of conditional shapes nested 'depth' levels deep. Only the properties that every generated block has are used,
+     * so that the shared shapes can be used by any of them.
+     */
+    private JsonElement makeShapeTree(int depth)
+    {
+        if (depth == 0)
+            return makeBox();
+
+        var list = new JsonArray();
+        for (int i = 0; i < shapeFanout; i++)
+        {
+            var when = new JsonObject();
+            if (rand.nextBoolean())
+                when.addProperty("powered", rand.nextBoolean() ? "true" : "false");
+            if (rand.nextBoolean() || when.size() == 0)
+                when.addProperty("waterlogged", rand.nextBoolean() ? "true" : "false");
+
+            var conditional = new JsonObject();
+            conditional.add("when", when);
+            conditional.add("shape", makeShapeTree(depth - 1));
+            list.add(conditional);
+        }
+        return list;
+    }
+
+    private JsonObject makeBlock(int index)
+    {
+        var obj = new JsonObject();
+        if (index % parentDepth != 0)
+        {
+            // Children only override a couple of values, the rest is inherited through the chain.
+            obj.addProperty("parent", id("block_" + (index - 1)));
+            obj.addProperty("destroy_time", rand.nextInt(50) / 10.0);
+            return obj;
+        }
+
+        obj.addProperty("material", "minecraft:stone");
+        obj.addProperty("destroy_time", rand.nextInt(50) / 10.0);
+        obj.addProperty("explosion_resistance", rand.nextInt(60) / 10.0);
+        obj.addProperty("requires_tool_for_drops", rand.nextBoolean());
+        obj.addProperty("not_solid", true);
+        obj.addProperty("render_layer", "cutout");
+
+        var properties = new JsonObject();
+        properties.addProperty("facing", "horizontal_facing");
+        properties.addProperty("powered", "powered");
+        properties.addProperty("waterlogged", "waterlogged");
+        obj.add("properties", properties);
+
+        var defaultState = new JsonObject();
+        defaultState.addProperty("facing", FACINGS[rand.nextInt(FACINGS.length)]);
+        defaultState.addProperty("powered", false);
+        defaultState.addProperty("waterlogged", false);
+        obj.add("default_state", defaultState);
+
+        obj.addProperty("shape_rotation", "facing");
+        if (shapes > 0 && rand.nextBoolean())
+            obj.addProperty("shape", id("shape_" + rand.nextInt(shapes)));
+        else
+            obj.add("shape", makeShapeTree(shapeDepth));
+
+        var item = new JsonObject();
+        item.addProperty("group", GROUPS[rand.nextInt(GROUPS.length)]);
+        obj.add("item", item);
+
+        return obj;
+    }
+
+    private JsonObject makeItem(int index)
+    {
+        var obj = new JsonObject();
+        if (index % parentDepth != 0)
+        {
+            obj.addProperty("parent", id("item_" + (index - 1)));
+            obj.addProperty("max_stack_size", 1 + rand.nextInt(64));
+            return obj;
+        }
+
+        var type = ITEM_TYPES[rand.nextInt(ITEM_TYPES.length)];
+        switch (type)
+        {
+            case "sword", "pickaxe" -> {
+                obj.addProperty("type", type);
+                obj.addProperty("tier", TIERS[rand.nextInt(TIERS.length)]);
+                obj.addProperty("damage", 1 + rand.nextInt(8));
+                obj.addProperty("speed", -rand.nextInt(30) / 10.0);
+                obj.addProperty("group", "tools");
+            }
+            case "armor" -> {
+                obj.addProperty("type", "armor");
+                obj.addProperty("material", "iron");
+                obj.addProperty("equipment_slot", ARMOR_SLOTS[rand.nextInt(ARMOR_SLOTS.length)]);
+                obj.addProperty("group", "combat");
+            }
+            case "food" -> {
+                if (foods > 0)
+                    obj.addProperty("food", id("food_" + rand.nextInt(foods)));
+                obj.addProperty("group", "food");
+            }
+            default -> {
+                obj.addProperty("max_stack_size", 1 + rand.nextInt(64));
+                obj.addProperty("group", GROUPS[rand.nextInt(GROUPS.length)]);
+            }
+        }
+
+        if (scripts > 0 && rand.nextInt(4) == 0)
+        {
+            var events = new JsonObject();
+            events.addProperty("use", id("script_" + rand.nextInt(scripts)));
+            events.addProperty("update", id("script_" + rand.nextInt(scripts)));
+            obj.add("events", events);
+        }
+
+        return obj;
+    }
+
+    private JsonObject makeEnchantment()
+    {
+        var obj = new JsonObject();
+        obj.addProperty("max_level", 1 + rand.nextInt(5));
+        obj.addProperty("base_cost", rand.nextInt(20));
+        obj.addProperty("per_level_cost", rand.nextInt(10));
+        return obj;
+    }
+}
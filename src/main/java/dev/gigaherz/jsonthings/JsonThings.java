@@ -3,8 +3,10 @@ package dev.gigaherz.jsonthings;
 import dev.gigaherz.jsonthings.things.ThingRegistries;
 import dev.gigaherz.jsonthings.things.client.BlockColorHandler;
 import dev.gigaherz.jsonthings.things.client.ItemColorHandler;
+import dev.gigaherz.jsonthings.things.events.EventProfiler;
 import dev.gigaherz.jsonthings.things.parsers.*;
 import dev.gigaherz.jsonthings.things.scripting.ScriptParser;
+import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
 import net.minecraft.CrashReport;
 import net.minecraft.ReportedException;
 import net.minecraft.Util;
@@ -67,6 +69,11 @@ public class JsonThings
     {
         var bus = FMLJavaModLoadingContext.get().getModEventBus();
 
+        JsonThingsConfig.load();
+        if (JsonThingsConfig.eventProfiler)
+            EventProfiler.start(JsonThingsConfig.profilerSampleRate);
+        DynamicShape.setLookupCounting(JsonThingsConfig.shapeStats);
+
         var manager = ThingResourceManager.initialize(bus);
         manager.addResourceReloadListener(ScriptParser.instance());
         blockParser = manager.registerParser(new BlockParser(bus));
@@ -110,6 +117,8 @@ public class JsonThings
         {
             loaderFuture.get().finishLoading();
             loaderFuture = null;
+            if (JsonThingsConfig.parallelBuilding)
+                blockParser.startPrebuilding();
         }
         catch (InterruptedException e)
         {
@@ -130,6 +139,11 @@ public class JsonThings
             Minecraft.getInstance().getResourcePackRepository().addPackFinder(ThingResourceManager.instance().getWrappedPackFinder());
         }
 
+        public static void runOnClientThread(Runnable runnable)
+        {
+            Minecraft.getInstance().execute(runnable);
+        }
+
         @SubscribeEvent
         public static void constructMod(FMLConstructModEvent event)
         {
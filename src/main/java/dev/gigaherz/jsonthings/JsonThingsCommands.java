@@ -0,0 +1,151 @@
+package dev.gigaherz.jsonthings;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import dev.gigaherz.jsonthings.things.events.EventProfiler;
+import dev.gigaherz.jsonthings.things.scripting.ScriptParser;
+import dev.gigaherz.jsonthings.things.scripting.ThingScript;
+import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
+import dev.gigaherz.jsonthings.things.shapes.ShapeInterner;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.TextComponent;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+@Mod.EventBusSubscriber(modid = JsonThings.MODID)
+public class JsonThingsCommands
+{
+    private static final int REPORT_LINES = 10;
+
+    @SubscribeEvent
+    public static void registerCommands(RegisterCommandsEvent event)
+    {
+        event.getDispatcher().register(Commands.literal("jsonthings")
+                .requires(source -> source.hasPermission(2))
+                .then(Commands.literal("profiler")
+                        .then(Commands.literal("start")
+                                .executes(ctx -> startProfiler(ctx, JsonThingsConfig.profilerSampleRate))
+                                .then(Commands.argument("sample_rate", IntegerArgumentType.integer(1))
+                                        .executes(ctx -> startProfiler(ctx, IntegerArgumentType.getInteger(ctx, "sample_rate")))))
+                        .then(Commands.literal("stop").executes(JsonThingsCommands::stopProfiler))
+                        .then(Commands.literal("reset").executes(JsonThingsCommands::resetProfiler))
+                        .then(Commands.literal("report").executes(JsonThingsCommands::reportProfiler))
+                        .then(Commands.literal("csv").executes(JsonThingsCommands::writeProfilerCsv))
+                )
+                .then(Commands.literal("shapes").executes(JsonThingsCommands::reportShapes)
+                        .then(Commands.literal("start").executes(ctx -> setShapeStats(ctx, true)))
+                        .then(Commands.literal("stop").executes(ctx -> setShapeStats(ctx, false)))
+                )
+        );
+    }
+
+    private static int startProfiler(CommandContext<CommandSourceStack> ctx, int sampleRate)
+    {
+        EventProfiler.start(sampleRate);
+        ctx.getSource().sendSuccess(new TextComponent("Event profiler running, timing 1 in " + sampleRate + " calls."), true);
+        return 1;
+    }
+
+    private static int stopProfiler(CommandContext<CommandSourceStack> ctx)
+    {
+        EventProfiler.stop();
+        ctx.getSource().sendSuccess(new TextComponent("Event profiler stopped."), true);
+        return 1;
+    }
+
+    private static int resetProfiler(CommandContext<CommandSourceStack> ctx)
+    {
+        EventProfiler.reset();
+        ctx.getSource().sendSuccess(new TextComponent("Event profiler data cleared."), true);
+        return 1;
+    }
+
+    private static int reportProfiler(CommandContext<CommandSourceStack> ctx)
+    {
+        var source = ctx.getSource();
+        var entries = EventProfiler.snapshot();
+        source.sendSuccess(new TextComponent(String.format(Locale.ROOT, "Event profiler: %d entries over %.1fs (%s)",
+                entries.size(), EventProfiler.getElapsedTime() / 1e9, EventProfiler.isRunning() ? "running" : "stopped")), false);
+        for (int i = 0; i < Math.min(REPORT_LINES, entries.size()); i++)
+        {
+            var entry = entries.get(i);
+            source.sendSuccess(new TextComponent(String.format(Locale.ROOT, "%s %s [%s]: %d calls, p50 %.1fus, p99 %.1fus, max %.1fus, %d B/call",
+                    entry.thing(), entry.event(), entry.handler(), entry.invocations(),
+                    entry.p50Nanos() / 1e3, entry.p99Nanos() / 1e3, entry.maxNanos() / 1e3, entry.meanAllocatedBytes())), false);
+        }
+        for (ThingScript script : ScriptParser.instance().getScripts().values())
+        {
+            if (script.getBudgetViolations() > 0)
+            {
+                source.sendSuccess(new TextComponent(String.format(Locale.ROOT, "Script %s exceeded its budget %d times%s",
+                        script.getLocation(), script.getBudgetViolations(), script.isDisabled() ? " and is disabled" : "")), false);
+            }
+        }
+        return entries.size();
+    }
+
+    private static int setShapeStats(CommandContext<CommandSourceStack> ctx, boolean enabled)
+    {
+        DynamicShape.setLookupCounting(enabled);
+        ctx.getSource().sendSuccess(new TextComponent(enabled ? "Counting shape cache lookups." : "Stopped counting shape cache lookups."), true);
+        return 1;
+    }
+
+    private static int reportShapes(CommandContext<CommandSourceStack> ctx)
+    {
+        var metrics = DynamicShape.getMetrics();
+        if (!DynamicShape.isLookupCounting())
+            ctx.getSource().sendSuccess(new TextComponent("Shape cache lookups are not being counted, use '/jsonthings shapes start' to count them."), false);
+        ctx.getSource().sendSuccess(new TextComponent(String.format(Locale.ROOT, "Shape cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d states warmed up",
+                metrics.hits(), metrics.misses(), metrics.hitRate() * 100, metrics.evictions(), metrics.warmedStates())), false);
+        ctx.getSource().sendSuccess(new TextComponent(String.format(Locale.ROOT, "Shape baking: %d states in %.1fms, %.1fus per state",
+                metrics.computedStates(), metrics.bakeNanos() / 1e6, metrics.meanBakeNanos() / 1e3)), false);
+        ctx.getSource().sendSuccess(new TextComponent(String.format(Locale.ROOT, "Shape pool: %d unique shapes, %d duplicates merged",
+                ShapeInterner.getUniqueCount(), ShapeInterner.getDeduplicatedCount())), false);
+        return (int) Math.min(Integer.MAX_VALUE, metrics.hits() + metrics.misses());
+    }
+
+    private static int writeProfilerCsv(CommandContext<CommandSourceStack> ctx)
+    {
+        var entries = EventProfiler.snapshot();
+        var fileName = "jsonthings-profile-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+        var path = FMLPaths.GAMEDIR.get().resolve(fileName);
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8)))
+        {
+            writer.println("thing,event,handler,invocations,samples,mean_ns,p50_ns,p99_ns,max_ns,mean_allocated_bytes");
+            for (EventProfiler.Entry entry : entries)
+            {
+                writer.println(String.join(",", csvField(entry.thing()), csvField(entry.event()), csvField(entry.handler()),
+                        Long.toString(entry.invocations()), Long.toString(entry.samples()),
+                        Long.toString(entry.meanNanos()), Long.toString(entry.p50Nanos()), Long.toString(entry.p99Nanos()),
+                        Long.toString(entry.maxNanos()), Long.toString(entry.meanAllocatedBytes())));
+            }
+        }
+        catch (IOException e)
+        {
+            JsonThings.LOGGER.error("Error writing " + path, e);
+            ctx.getSource().sendFailure(new TextComponent("Could not write " + fileName + ": " + e.getMessage()));
+            return 0;
+        }
+        ctx.getSource().sendSuccess(new TextComponent("Wrote " + entries.size() + " entries to " + fileName), true);
+        return entries.size();
+    }
+
+    private static String csvField(String value)
+    {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
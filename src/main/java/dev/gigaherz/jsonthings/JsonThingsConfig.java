@@ -0,0 +1,170 @@
+package dev.gigaherz.jsonthings;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import dev.gigaherz.jsonthings.things.scripting.ScriptBudget;
+import dev.gigaherz.jsonthings.util.parse.JParse;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loader and runtime options, read from config/jsonthings-common.json.
+ * This is loaded during mod construction, before the thingpacks start loading,
+ * which is earlier than Forge's own config system is available.
+ */
+public class JsonThingsConfig
+{
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    /**
+     * If enabled, the files of each thing type are parsed in parallel using the background executor.
+     */
+    public static boolean parallelParsing = false;
+
+    /**
+     * If enabled, the json files read from the thingpacks are stored in a binary cache in the game directory,
+     * and reused on the next launch if the selected packs have not changed.
+     */
+    public static boolean thingCache = false;
+
+    /**
+     * If enabled, the shapes of Flex blocks are computed for every block state when the block is built,
+     * instead of lazily the first time each state is queried. Baked shapes are looked up by state index,
+     * without going through the shape cache.
+     */
+    public static boolean eagerShapeBaking = false;
+
+    /**
+     * If enabled, the blocks are built on the background executor as soon as the thingpacks are loaded,
+     * and the block registry event only registers the prebuilt blocks.
+     */
+    public static boolean parallelBuilding = false;
+
+    /**
+     * The most block states whose shapes each lazily computed Flex block shape keeps at once. Zero or less means no limit.
+     * The limit applies per shape, so a named shape used by several blocks shares it between all of them,
+     * and once it's reached an arbitrary cached state is evicted to make room, not the least recently used one.
+     * Blocks with more states than this are never baked eagerly, even if {@link #eagerShapeBaking} is enabled,
+     * but they are still warmed up if {@link #shapeWarmUp} is.
+     */
+    public static int shapeCacheLimit = 4096;
+
+    /**
+     * If enabled, the shapes of the default state of each Flex block that is not baked eagerly (and its rotations)
+     * are computed on the background executor once the blocks are registered.
+     */
+    public static boolean shapeWarmUp = true;
+
+    /**
+     * If enabled, lookups in the lazily computed shape caches are counted from the start, for the shapes command.
+     * Counting can also be turned on and off with that command.
+     */
+    public static boolean shapeStats = false;
+
+    /**
+     * If enabled, the thingpacks folder is watched for changes while the game is running, and changes to scripts and shapes are applied live.
+     * Meant for development, since watching a large folder has a cost.
+     */
+    public static boolean hotReload = false;
+
+    /**
+     * If enabled, the event profiler starts running as soon as the game starts, instead of waiting for the profiler command.
+     */
+    public static boolean eventProfiler = false;
+
+    /**
+     * One in every this many event handler calls is timed by the event profiler. The rest are only counted.
+     */
+    public static int profilerSampleRate = 16;
+
+    /**
+     * The instruction budget applied to scripts that have no entry in {@link #scriptBudgetOverrides}.
+     */
+    public static ScriptBudget scriptBudget = ScriptBudget.UNLIMITED;
+
+    /**
+     * Per-script instruction budgets, keyed by script id.
+     */
+    public static Map<ResourceLocation, ScriptBudget> scriptBudgetOverrides = new HashMap<>();
+
+    public static ScriptBudget getScriptBudget(ResourceLocation scriptId)
+    {
+        return scriptBudgetOverrides.getOrDefault(scriptId, scriptBudget);
+    }
+
+    public static void load()
+    {
+        File configFile = getConfigFile();
+        if (configFile.exists())
+        {
+            try (FileInputStream stream = new FileInputStream(configFile);
+                 Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+            {
+                JsonObject obj = GSON.fromJson(reader, JsonObject.class);
+                JParse.begin(obj).obj()
+                        .ifKey("parallel_parsing", val -> val.bool().handle(b -> parallelParsing = b))
+                        .ifKey("thing_cache", val -> val.bool().handle(b -> thingCache = b))
+                        .ifKey("eager_shape_baking", val -> val.bool().handle(b -> eagerShapeBaking = b))
+                        .ifKey("parallel_building", val -> val.bool().handle(b -> parallelBuilding = b))
+                        .ifKey("shape_cache_limit", val -> val.intValue().handle(i -> shapeCacheLimit = i))
+                        .ifKey("shape_warm_up", val -> val.bool().handle(b -> shapeWarmUp = b))
+                        .ifKey("shape_stats", val -> val.bool().handle(b -> shapeStats = b))
+                        .ifKey("hot_reload", val -> val.bool().handle(b -> hotReload = b))
+                        .ifKey("event_profiler", val -> val.bool().handle(b -> eventProfiler = b))
+                        .ifKey("profiler_sample_rate", val -> val.intValue().min(1).handle(i -> profilerSampleRate = i))
+                        .ifKey("script_budget", val -> {
+                            var budget = val.obj();
+                            scriptBudget = ScriptBudget.parse(budget, ScriptBudget.UNLIMITED);
+                            budget.ifKey("overrides", overrides -> overrides.obj().forEach((key, entry) ->
+                                    scriptBudgetOverrides.put(new ResourceLocation(key), ScriptBudget.parse(entry.obj(), scriptBudget))));
+                        });
+            }
+            catch (Exception e)
+            {
+                JsonThings.LOGGER.error("Error reading " + configFile + ", using defaults.", e);
+            }
+        }
+
+        save();
+    }
+
+    public static void save()
+    {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("parallel_parsing", parallelParsing);
+        obj.addProperty("thing_cache", thingCache);
+        obj.addProperty("eager_shape_baking", eagerShapeBaking);
+        obj.addProperty("parallel_building", parallelBuilding);
+        obj.addProperty("shape_cache_limit", shapeCacheLimit);
+        obj.addProperty("shape_warm_up", shapeWarmUp);
+        obj.addProperty("shape_stats", shapeStats);
+        obj.addProperty("hot_reload", hotReload);
+        obj.addProperty("event_profiler", eventProfiler);
+        obj.addProperty("profiler_sample_rate", profilerSampleRate);
+        JsonObject budget = scriptBudget.serialize();
+        JsonObject overrides = new JsonObject();
+        scriptBudgetOverrides.forEach((key, value) -> overrides.add(key.toString(), value.serialize()));
+        budget.add("overrides", overrides);
+        obj.add("script_budget", budget);
+        try (FileOutputStream stream = new FileOutputStream(getConfigFile());
+             Writer w = new OutputStreamWriter(stream, StandardCharsets.UTF_8))
+        {
+            w.write(GSON.toJson(obj));
+        }
+        catch (IOException e)
+        {
+            JsonThings.LOGGER.error("Error writing " + getConfigFile(), e);
+        }
+    }
+
+    private static File getConfigFile()
+    {
+        return FMLPaths.CONFIGDIR.get().resolve("jsonthings-common.json").toFile();
+    }
+}
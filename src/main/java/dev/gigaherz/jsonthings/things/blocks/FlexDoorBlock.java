@@ -1,10 +1,11 @@
 package dev.gigaherz.jsonthings.things.blocks;
 
-import com.google.common.collect.Maps;
 import dev.gigaherz.jsonthings.things.IFlexBlock;
 import dev.gigaherz.jsonthings.things.events.FlexEventContext;
 import dev.gigaherz.jsonthings.things.events.FlexEventHandler;
+import dev.gigaherz.jsonthings.things.events.FlexEventHandlers;
 import dev.gigaherz.jsonthings.things.events.FlexEventResult;
+import dev.gigaherz.jsonthings.things.events.FlexEventType;
 import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.InteractionHand;
@@ -35,7 +36,7 @@ public class FlexDoorBlock extends DoorBlock implements IFlexBlock
     private DynamicShape collisionShape;
     private DynamicShape raytraceShape;
     private DynamicShape renderShape;
-    private final Map<String, FlexEventHandler> eventHandlers = Maps.newHashMap();
+    private final FlexEventHandlers eventHandlers = new FlexEventHandlers();
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     private void initializeFlex(Map<Property<?>, Comparable<?>> propertyDefaultValues)
@@ -66,6 +67,12 @@ public class FlexDoorBlock extends DoorBlock implements IFlexBlock
         return eventHandlers.get(eventName);
     }
 
+    @Override
+    public FlexEventHandler getEventHandler(FlexEventType event)
+    {
+        return eventHandlers.get(event);
+    }
+
     @Override
     public void setGeneralShape(@Nullable DynamicShape shape)
     {
@@ -131,7 +138,7 @@ public class FlexDoorBlock extends DoorBlock implements IFlexBlock
     @Override
     public InteractionResult use(BlockState state, Level worldIn, BlockPos pos, Player player, InteractionHand handIn, BlockHitResult hit)
     {
-        return runEvent("use", FlexEventContext.of(worldIn, pos, state)
+        return runEvent(FlexEventType.USE, () -> FlexEventContext.of(worldIn, pos, state)
                 .withHand(player, handIn)
                 .withRayTrace(hit), () -> FlexEventResult.of(super.use(state, worldIn, pos, player, handIn, hit))).result();
     }
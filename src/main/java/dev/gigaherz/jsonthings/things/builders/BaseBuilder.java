@@ -1,5 +1,6 @@
 package dev.gigaherz.jsonthings.things.builders;
 
+import dev.gigaherz.jsonthings.util.JfrEvents;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
 import net.minecraft.ReportedException;
@@ -23,9 +24,13 @@ public abstract class BaseBuilder<T> implements Supplier<T>
 
     private T build()
     {
+        var event = new JfrEvents.BuildThing();
+        event.begin();
+        var previousResource = JfrEvents.setCurrentResource(registryName);
         try
         {
             builtThing = buildInternal();
+            event.commit(registryName, getThingTypeDisplayName());
             return builtThing;
         }
         catch (Exception e)
@@ -36,6 +41,10 @@ public abstract class BaseBuilder<T> implements Supplier<T>
 
             throw new ReportedException(report);
         }
+        finally
+        {
+            JfrEvents.setCurrentResource(previousResource);
+        }
     }
 
     protected abstract String getThingTypeDisplayName();
@@ -56,6 +65,11 @@ public abstract class BaseBuilder<T> implements Supplier<T>
         return builtThing;
     }
 
+    public final boolean isBuilt()
+    {
+        return builtThing != null;
+    }
+
     public final ResourceLocation getRegistryName()
     {
         return registryName;
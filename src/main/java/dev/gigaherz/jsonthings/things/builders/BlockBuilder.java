@@ -3,6 +3,7 @@ package dev.gigaherz.jsonthings.things.builders;
 import com.google.gson.JsonObject;
 import com.mojang.datafixers.util.Pair;
 import dev.gigaherz.jsonthings.JsonThings;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
 import dev.gigaherz.jsonthings.things.IFlexBlock;
 import dev.gigaherz.jsonthings.things.ThingRegistries;
 import dev.gigaherz.jsonthings.things.scripting.ScriptParser;
@@ -58,6 +59,9 @@ public class BlockBuilder extends BaseBuilder<IFlexBlock>
     private Float jumpFactor;
     private ResourceLocation soundType;
 
+    private boolean resolving;
+    private boolean resolved;
+
     private BlockBuilder(ResourceLocation registryName, JsonObject data)
     {
         super(registryName);
@@ -253,10 +257,10 @@ public class BlockBuilder extends BaseBuilder<IFlexBlock>
 
         IFlexBlock flexBlock = factory.construct(props, this);
 
-        flexBlock.setGeneralShape(getGeneralShape());
-        flexBlock.setCollisionShape(getCollisionShape());
-        flexBlock.setRaytraceShape(getRaytraceShape());
-        flexBlock.setRenderShape(getRenderShape());
+        flexBlock.setGeneralShape(bakeShape(getGeneralShape(), flexBlock));
+        flexBlock.setCollisionShape(bakeShape(getCollisionShape(), flexBlock));
+        flexBlock.setRaytraceShape(bakeShape(getRaytraceShape(), flexBlock));
+        flexBlock.setRenderShape(bakeShape(getRenderShape(), flexBlock));
 
         forEachEvent((key, list) -> {
             for(var ev : list)
@@ -268,6 +272,18 @@ public class BlockBuilder extends BaseBuilder<IFlexBlock>
         return flexBlock;
     }
 
+    @Nullable
+    private static DynamicShape bakeShape(@Nullable DynamicShape shape, IFlexBlock flexBlock)
+    {
+        if (shape == null)
+            return null;
+        if (JsonThingsConfig.eagerShapeBaking)
+            shape = shape.bake(flexBlock.self().getStateDefinition());
+        if (JsonThingsConfig.shapeWarmUp && !shape.isBaked())
+            shape.scheduleWarmUp(flexBlock.self().defaultBlockState());
+        return shape;
+    }
+
     public BlockBuilder getParentBuilderName()
     {
         if (parentBuilder == null)
@@ -297,10 +313,82 @@ public class BlockBuilder extends BaseBuilder<IFlexBlock>
         return parentBuilder;
     }
 
+    /**
+     * Copies the values inherited through the parent chain into this builder, once all the blocks have been parsed.
+     * Parents are resolved before their children, so each chain is walked once instead of on every getter call.
+     */
+    public void resolveParents()
+    {
+        if (resolved)
+            return;
+        if (resolving)
+            throw new IllegalStateException("The parents of block " + getRegistryName() + " form a cycle: " + describeParentCycle());
+
+        resolving = true;
+        try
+        {
+            var parent = getParent();
+            if (parent != null)
+            {
+                parent.resolveParents();
+                inheritFrom(parent);
+            }
+            resolved = true;
+        }
+        finally
+        {
+            resolving = false;
+        }
+    }
+
+    private String describeParentCycle()
+    {
+        var names = new ArrayList<String>();
+        var current = this;
+        do
+        {
+            names.add(current.getRegistryName().toString());
+            current = current.getParent();
+        } while (current != null && current != this);
+        names.add(getRegistryName().toString());
+        return String.join(" -> ", names);
+    }
+
+    private void inheritFrom(BlockBuilder parent)
+    {
+        if (blockType == null) blockType = parent.blockType;
+        if (blockMaterial == null) blockMaterial = parent.blockMaterial;
+        if (blockMaterialColor == null) blockMaterialColor = parent.blockMaterialColor;
+        if (generalShape == null) generalShape = parent.generalShape;
+        if (collisionShape == null) collisionShape = parent.collisionShape;
+        if (raytraceShape == null) raytraceShape = parent.raytraceShape;
+        if (renderShape == null) renderShape = parent.renderShape;
+        if (renderLayers == null) renderLayers = parent.renderLayers;
+        if (colorHandler == null) colorHandler = parent.colorHandler;
+        if (properties == null)
+        {
+            properties = parent.properties;
+            propertiesByName = parent.propertiesByName;
+        }
+        if (propertyDefaultValues == null) propertyDefaultValues = parent.propertyDefaultValues;
+        if (seeThrough == null) seeThrough = parent.seeThrough;
+        if (requiresToolForDrops == null) requiresToolForDrops = parent.requiresToolForDrops;
+        if (isAir == null) isAir = parent.isAir;
+        if (hasCollision == null) hasCollision = parent.hasCollision;
+        if (randomTicks == null) randomTicks = parent.randomTicks;
+        if (lightEmission == null) lightEmission = parent.lightEmission;
+        if (explosionResistance == null) explosionResistance = parent.explosionResistance;
+        if (destroyTime == null) destroyTime = parent.destroyTime;
+        if (friction == null) friction = parent.friction;
+        if (speedFactor == null) speedFactor = parent.speedFactor;
+        if (jumpFactor == null) jumpFactor = parent.jumpFactor;
+        if (soundType == null) soundType = parent.soundType;
+    }
+
     @Nullable
     private <T> T getValueWithParent(@Nullable T thisValue, Function<BlockBuilder, T> parentGetter)
     {
-        if (thisValue != null) return thisValue;
+        if (thisValue != null || resolved) return thisValue;
         if (getParent() != null)
         {
             BlockBuilder parent = getParentBuilderName();
@@ -51,6 +51,9 @@ public class ItemBuilder extends BaseBuilder<IFlexItem>
 
     private List<MutableComponent> lore = List.of();
 
+    private boolean resolving;
+    private boolean resolved;
+
     private ItemBuilder(ResourceLocation registryName, JsonObject data)
     {
         super(registryName);
@@ -241,10 +244,63 @@ public class ItemBuilder extends BaseBuilder<IFlexItem>
         return parentBuilderObj;
     }
 
+    /**
+     * Copies the values inherited through the parent chain into this builder, once all the items have been parsed.
+     * Parents are resolved before their children, so each chain is walked once instead of on every getter call.
+     */
+    public void resolveParents()
+    {
+        if (resolved)
+            return;
+        if (resolving)
+            throw new IllegalStateException("The parents of item " + getRegistryName() + " form a cycle: " + describeParentCycle());
+
+        resolving = true;
+        try
+        {
+            if (parentBuilder != null)
+            {
+                var parent = getParentBuilder();
+                parent.resolveParents();
+                inheritFrom(parent);
+            }
+            resolved = true;
+        }
+        finally
+        {
+            resolving = false;
+        }
+    }
+
+    private String describeParentCycle()
+    {
+        var names = new ArrayList<String>();
+        var current = this;
+        do
+        {
+            names.add(current.getRegistryName().toString());
+            current = current.parentBuilder != null ? current.getParentBuilder() : null;
+        } while (current != null && current != this);
+        names.add(getRegistryName().toString());
+        return String.join(" -> ", names);
+    }
+
+    private void inheritFrom(ItemBuilder parent)
+    {
+        if (itemType == null) itemType = parent.itemType;
+        if (maxStackSize == null) maxStackSize = parent.maxStackSize;
+        if (maxDamage == null) maxDamage = parent.maxDamage;
+        if (foodDefinition == null) foodDefinition = parent.foodDefinition;
+        if (delayedUse == null) delayedUse = parent.delayedUse;
+        if (containerInfo == null) containerInfo = parent.containerInfo;
+        if (colorHandler == null) colorHandler = parent.colorHandler;
+        if (creativeMenuStacks.isEmpty()) creativeMenuStacks.addAll(parent.creativeMenuStacks);
+    }
+
     @Nullable
     private <T> T getValueWithParent(@Nullable T thisValue, Function<ItemBuilder, T> parentGetter)
     {
-        if (thisValue != null) return thisValue;
+        if (thisValue != null || resolved) return thisValue;
         if (parentBuilder != null)
         {
             ItemBuilder parent = getParentBuilder();
@@ -255,7 +311,7 @@ public class ItemBuilder extends BaseBuilder<IFlexItem>
 
     public List<Pair<StackContext, String[]>> getCreativeMenuStacks()
     {
-        if (creativeMenuStacks.size() > 0)
+        if (creativeMenuStacks.size() > 0 || resolved)
             return creativeMenuStacks;
 
         if (parentBuilder != null)
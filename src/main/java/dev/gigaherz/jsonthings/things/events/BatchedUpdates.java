@@ -0,0 +1,160 @@
+package dev.gigaherz.jsonthings.things.events;
+
+import dev.gigaherz.jsonthings.JsonThings;
+import net.minecraft.core.NonNullList;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the "update" events of items whose handler supports batching, and runs each handler once
+ * at the end of the tick with all the contexts collected during it.
+ * The queues are per-thread, so the client and the integrated server never see each other's updates.
+ */
+@Mod.EventBusSubscriber(modid = JsonThings.MODID)
+public class BatchedUpdates
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final ThreadLocal<Map<FlexEventHandler, List<PendingUpdate>>> pendingUpdates = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    // Entity.getSlot numbering of the equipment slots, see LivingEntity.getEquipmentSlot.
+    private static final int OFFHAND_SLOT = 99;
+    private static final int ARMOR_SLOT_OFFSET = 100;
+
+    /**
+     * Queues an update for the end of the tick. The 'defaultBehaviour' runs then if the handler returns a null result for it.
+     */
+    public static void enqueue(FlexEventHandler handler, FlexEventContext context, Entity entity, int slot, ItemStack stack, Runnable defaultBehaviour)
+    {
+        pendingUpdates.get().computeIfAbsent(handler, h -> new ArrayList<>())
+                .add(new PendingUpdate(context, entity, toEntitySlot(entity, slot, stack), stack, defaultBehaviour));
+    }
+
+    /**
+     * The slot passed to inventoryTick counts from the start of the inventory section (main, armor or offhand) holding the stack,
+     * which only matches the numbering used by Entity.getSlot for the main section.
+     */
+    private static int toEntitySlot(Entity entity, int sectionSlot, ItemStack stack)
+    {
+        if (entity instanceof Player player)
+        {
+            var inventory = player.getInventory();
+            if (isAt(inventory.items, sectionSlot, stack))
+                return sectionSlot;
+            if (isAt(inventory.armor, sectionSlot, stack))
+                return ARMOR_SLOT_OFFSET + sectionSlot;
+            if (isAt(inventory.offhand, sectionSlot, stack))
+                return OFFHAND_SLOT;
+        }
+        return sectionSlot;
+    }
+
+    private static boolean isAt(NonNullList<ItemStack> section, int slot, ItemStack stack)
+    {
+        return slot >= 0 && slot < section.size() && section.get(slot) == stack;
+    }
+
+    @SubscribeEvent
+    public static void serverTick(TickEvent.ServerTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END)
+            flush();
+    }
+
+    @SubscribeEvent
+    public static void clientTick(TickEvent.ClientTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END)
+            flush();
+    }
+
+    private static void flush()
+    {
+        var pending = pendingUpdates.get();
+        if (pending.isEmpty())
+            return;
+
+        // Copied and cleared first, so that updates queued while running the handlers go to the next tick.
+        var batches = new ArrayList<>(pending.entrySet());
+        pending.clear();
+
+        for (Map.Entry<FlexEventHandler, List<PendingUpdate>> entry : batches)
+        {
+            // The updates run at the end of the tick, by then the entity holding the stack may be gone.
+            var updates = new ArrayList<PendingUpdate>(entry.getValue().size());
+            for (PendingUpdate update : entry.getValue())
+            {
+                if (!update.entity().isRemoved())
+                    updates.add(update);
+            }
+            if (updates.isEmpty())
+                continue;
+
+            var contexts = new ArrayList<FlexEventContext>(updates.size());
+            for (PendingUpdate update : updates)
+            {
+                contexts.add(update.context());
+            }
+
+            // One failing handler must not lose the updates queued for the others.
+            List<FlexEventResult> results;
+            try
+            {
+                results = EventProfiler.applyBatch(entry.getKey(), FlexEventType.UPDATE.getName(), contexts);
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Batched update handler " + entry.getKey() + " failed, running the default behaviour instead.", e);
+                runDefaults(updates);
+                continue;
+            }
+            if (results.size() != updates.size())
+            {
+                LOGGER.error("Batched update handler {} returned {} results for {} contexts, running the default behaviour instead.", entry.getKey(), results.size(), updates.size());
+                runDefaults(updates);
+                continue;
+            }
+
+            for (int i = 0; i < updates.size(); i++)
+            {
+                var update = updates.get(i);
+                var result = results.get(i);
+                if (result == null)
+                {
+                    update.defaultBehaviour().run();
+                    continue;
+                }
+                if (result.stack() == update.stack())
+                    continue;
+
+                // The stack may have been moved, dropped or replaced since the update was queued, don't write over whatever is there now.
+                var slot = update.entity().getSlot(update.slot());
+                if (slot.get() == update.stack())
+                    slot.set(result.stack());
+            }
+        }
+    }
+
+    private static void runDefaults(List<PendingUpdate> updates)
+    {
+        for (PendingUpdate update : updates)
+        {
+            update.defaultBehaviour().run();
+        }
+    }
+
+    private record PendingUpdate(FlexEventContext context, Entity entity, int slot, ItemStack stack, Runnable defaultBehaviour)
+    {
+    }
+}
@@ -1,18 +1,20 @@
 package dev.gigaherz.jsonthings.things.events;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("ClassCanBeRecord")
 public class ContextValue<T>
 {
     private final String name;
     private final Class<? extends T> type;
+    private final int id;
 
-    private ContextValue(String name, Class<? extends T> type)
+    private ContextValue(String name, Class<? extends T> type, int id)
     {
         this.name = name;
         this.type = type;
+        this.id = id;
     }
 
     public String getName()
@@ -25,15 +27,29 @@ public class ContextValue<T>
         return type;
     }
 
-    public static <T> ContextValue<T> create(String name, Class<? extends T> type)
+    /**
+     * Dense index of this value, assigned in creation order. Used as the slot index in {@link FlexEventContext}.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    public static synchronized <T> ContextValue<T> create(String name, Class<? extends T> type)
     {
         if (registeredValue.containsKey(name))
             throw new RuntimeException("Duplicate key " + name + " for ContextValue");
-        var val = new ContextValue<T>(name, type);
+        var val = new ContextValue<T>(name, type, count);
         registeredValue.put(name, val);
+        count++;
         return val;
     }
 
+    public static int count()
+    {
+        return count;
+    }
+
     public static ContextValue<?> get(String name)
     {
         if (!registeredValue.containsKey(name))
@@ -41,5 +57,7 @@ public class ContextValue<T>
         return registeredValue.get(name);
     }
 
-    private static final Map<String, ContextValue<?>> registeredValue = new HashMap<>();
+    // Values are created under the class lock, but read from any thread without it.
+    private static final Map<String, ContextValue<?>> registeredValue = new ConcurrentHashMap<>();
+    private static volatile int count;
 }
@@ -0,0 +1,327 @@
+package dev.gigaherz.jsonthings.things.events;
+
+import dev.gigaherz.jsonthings.things.scripting.ThingScript;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.registries.IForgeRegistryEntry;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics about the event handlers run by things, keyed by thing, event and handler.
+ * Invocations are always counted while the profiler is running, but only one in every 'sampleRate' calls is timed,
+ * so that it can be left running on a live server. Timings include any nested events run by the handler.
+ */
+public class EventProfiler
+{
+    // Stands in for the thing when timing batched calls, which run for many things at once.
+    private static final Object BATCHED = new Object();
+
+    private static volatile boolean running;
+    private static volatile int sampleRate = 1;
+    private static volatile long startTime;
+    // Thing -> handler -> stats indexed by event id. Things and handlers are compared by identity,
+    // so finding the stats of a call doesn't allocate, and names are only resolved when taking a snapshot.
+    private static final Map<Object, Map<FlexEventHandler, Stats[]>> stats = new ConcurrentHashMap<>();
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean threadBean = findThreadBean();
+
+    public static boolean isRunning()
+    {
+        return running;
+    }
+
+    public static void start(int sampleRate)
+    {
+        EventProfiler.sampleRate = Math.max(1, sampleRate);
+        if (!running)
+        {
+            startTime = System.nanoTime();
+            running = true;
+        }
+    }
+
+    public static void stop()
+    {
+        running = false;
+    }
+
+    public static void reset()
+    {
+        stats.clear();
+        startTime = System.nanoTime();
+    }
+
+    public static int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    /**
+     * Time since the profiler was started or reset, in nanoseconds.
+     */
+    public static long getElapsedTime()
+    {
+        return System.nanoTime() - startTime;
+    }
+
+    @Nullable
+    public static FlexEventResult apply(IEventRunner runner, FlexEventHandler handler, String eventName, FlexEventContext context)
+    {
+        if (!running)
+            return handler.apply(eventName, context);
+        return apply(runner, handler, FlexEventType.get(eventName), context);
+    }
+
+    @Nullable
+    public static FlexEventResult apply(IEventRunner runner, FlexEventHandler handler, FlexEventType event, FlexEventContext context)
+    {
+        var eventName = event.getName();
+        if (!running)
+            return handler.apply(eventName, context);
+
+        var entry = getStats(runner, event, handler);
+        if (!shouldSample())
+        {
+            entry.invocations.increment();
+            return handler.apply(eventName, context);
+        }
+
+        var startBytes = getAllocatedBytes();
+        var start = System.nanoTime();
+        try
+        {
+            return handler.apply(eventName, context);
+        }
+        finally
+        {
+            entry.record(System.nanoTime() - start, startBytes);
+        }
+    }
+
+    public static List<FlexEventResult> applyBatch(FlexEventHandler handler, String eventName, List<FlexEventContext> contexts)
+    {
+        if (!running)
+            return handler.applyBatch(eventName, contexts);
+
+        var entry = getStats(BATCHED, FlexEventType.get(eventName), handler);
+        if (!shouldSample())
+        {
+            entry.invocations.increment();
+            return handler.applyBatch(eventName, contexts);
+        }
+
+        var startBytes = getAllocatedBytes();
+        var start = System.nanoTime();
+        try
+        {
+            return handler.applyBatch(eventName, contexts);
+        }
+        finally
+        {
+            entry.record(System.nanoTime() - start, startBytes);
+        }
+    }
+
+    public static List<Entry> snapshot()
+    {
+        var list = new ArrayList<Entry>();
+        stats.forEach((thing, byHandler) -> byHandler.forEach((handler, byEvent) -> {
+            for (Stats entry : byEvent)
+            {
+                if (entry != null)
+                    list.add(entry.snapshot());
+            }
+        }));
+        list.sort(Comparator.comparingDouble(Entry::estimatedTotalNanos).reversed());
+        return list;
+    }
+
+    public static boolean isAllocationTracked()
+    {
+        return threadBean != null;
+    }
+
+    private static boolean shouldSample()
+    {
+        var rate = sampleRate;
+        return rate <= 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    private static Stats getStats(Object thing, FlexEventType event, FlexEventHandler handler)
+    {
+        var byHandler = stats.get(thing);
+        if (byHandler == null)
+            byHandler = stats.computeIfAbsent(thing, t -> new ConcurrentHashMap<>());
+        var byEvent = byHandler.get(handler);
+        int id = event.getId();
+        if (byEvent != null && id < byEvent.length)
+        {
+            var entry = byEvent[id];
+            if (entry != null)
+                return entry;
+        }
+        return createStats(byHandler, thing, event, handler);
+    }
+
+    private static Stats createStats(Map<FlexEventHandler, Stats[]> byHandler, Object thing, FlexEventType event, FlexEventHandler handler)
+    {
+        // Only the first call of each thing, event and handler gets here. The arrays are copied instead of modified,
+        // so readers never see a partially filled one.
+        synchronized (byHandler)
+        {
+            var byEvent = byHandler.get(handler);
+            int id = event.getId();
+            if (byEvent != null && id < byEvent.length && byEvent[id] != null)
+                return byEvent[id];
+            var copy = byEvent != null ? Arrays.copyOf(byEvent, Math.max(byEvent.length, id + 1)) : new Stats[id + 1];
+            var entry = new Stats(thing, event, handler);
+            copy[id] = entry;
+            byHandler.put(handler, copy);
+            return entry;
+        }
+    }
+
+    private static String getThingName(Object thing)
+    {
+        if (thing == BATCHED)
+            return "*";
+        if (thing instanceof IForgeRegistryEntry<?> entry)
+        {
+            ResourceLocation name = entry.getRegistryName();
+            if (name != null)
+                return name.toString();
+        }
+        return thing.getClass().getSimpleName();
+    }
+
+    private static String getHandlerName(FlexEventHandler handler)
+    {
+        if (handler instanceof ThingScript script)
+            return script.getLocation().toString();
+        return handler.getClass().getName();
+    }
+
+    private static long getAllocatedBytes()
+    {
+        var bean = threadBean;
+        return bean != null ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean findThreadBean()
+    {
+        try
+        {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported())
+            {
+                if (!bean.isThreadAllocatedMemoryEnabled())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        }
+        catch (UnsupportedOperationException | SecurityException e)
+        {
+            // Allocation tracking is optional.
+        }
+        return null;
+    }
+
+    public record Entry(String thing, String event, String handler, long invocations, long samples,
+                        long meanNanos, long p50Nanos, long p99Nanos, long maxNanos, long meanAllocatedBytes)
+    {
+        public double estimatedTotalNanos()
+        {
+            return (double) meanNanos * invocations;
+        }
+    }
+
+    private static class Stats
+    {
+        // Log-linear histogram: 4 buckets for each power of two, which keeps the percentiles within 25% of the real value.
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final Object thing;
+        private final FlexEventType event;
+        private final FlexEventHandler handler;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(64 * SUB_BUCKETS);
+
+        private Stats(Object thing, FlexEventType event, FlexEventHandler handler)
+        {
+            this.thing = thing;
+            this.event = event;
+            this.handler = handler;
+        }
+
+        private void record(long nanos, long startBytes)
+        {
+            var endBytes = getAllocatedBytes();
+            invocations.increment();
+            samples.increment();
+            totalNanos.add(nanos);
+            allocatedBytes.add(endBytes - startBytes);
+            maxNanos.accumulate(nanos);
+            histogram.incrementAndGet(bucketIndex(nanos));
+        }
+
+        private static int bucketIndex(long value)
+        {
+            if (value < SUB_BUCKETS)
+                return (int) Math.max(value, 0);
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long bucketUpperBound(int index)
+        {
+            if (index < SUB_BUCKETS)
+                return index;
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        private long percentile(long count, double fraction)
+        {
+            if (count == 0)
+                return 0;
+            long target = (long) Math.ceil(count * fraction);
+            long seen = 0;
+            for (int i = 0; i < histogram.length(); i++)
+            {
+                seen += histogram.get(i);
+                if (seen >= target)
+                    return bucketUpperBound(i);
+            }
+            return maxNanos.get();
+        }
+
+        private Entry snapshot()
+        {
+            long sampleCount = samples.sum();
+            long mean = sampleCount > 0 ? totalNanos.sum() / sampleCount : 0;
+            long meanBytes = sampleCount > 0 ? allocatedBytes.sum() / sampleCount : 0;
+            return new Entry(getThingName(thing), event.getName(), getHandlerName(handler), invocations.sum(), sampleCount,
+                    mean, percentile(sampleCount, 0.5), percentile(sampleCount, 0.99), maxNanos.get(), meanBytes);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package dev.gigaherz.jsonthings.things.events;
 
-import com.google.common.collect.Maps;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.world.InteractionHand;
@@ -17,7 +16,7 @@ import net.minecraft.world.phys.EntityHitResult;
 import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.Vec3;
 
-import java.util.Map;
+import java.util.Arrays;
 
 public class FlexEventContext
 {
@@ -42,7 +41,10 @@ public class FlexEventContext
     public static final ContextValue<Enchantment> ENCHANTMENT = ContextValue.create("enchantment", Enchantment.class);
     public static final ContextValue<Integer> ENCHANTMENT_LEVEL = ContextValue.create("enchantment_level", Integer.class);
 
-    private final Map<ContextValue<?>, Object> parameters = Maps.newHashMap();
+    // Stands in for values explicitly set to null, so that has() still reports them as present.
+    private static final Object NULL_VALUE = new Object();
+
+    private Object[] parameters = new Object[ContextValue.count()];
 
     public FlexEventContext()
     {
@@ -55,7 +57,10 @@ public class FlexEventContext
 
     public <T> FlexEventContext with(ContextValue<T> key, T value)
     {
-        parameters.put(key, value);
+        int id = key.getId();
+        if (id >= parameters.length)
+            parameters = Arrays.copyOf(parameters, Math.max(id + 1, ContextValue.count()));
+        parameters[id] = value != null ? value : NULL_VALUE;
         return this;
     }
 
@@ -95,13 +100,18 @@ public class FlexEventContext
 
     public <T> boolean has(ContextValue<T> key)
     {
-        return parameters.containsKey(key);
+        int id = key.getId();
+        return id < parameters.length && parameters[id] != null;
     }
 
     @SuppressWarnings("unchecked")
     public <T> T get(ContextValue<T> key)
     {
-        return (T) parameters.get(key);
+        int id = key.getId();
+        if (id >= parameters.length)
+            return null;
+        Object value = parameters[id];
+        return value != NULL_VALUE ? (T) value : null;
     }
 
     public static FlexEventContext of(UseOnContext ctx)
@@ -1,9 +1,38 @@
 package dev.gigaherz.jsonthings.things.events;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiFunction;
 
 public interface FlexEventHandler extends BiFunction<String, FlexEventContext, FlexEventResult>
 {
+    /**
+     * Runs the handler. A null result means the handler declined to run, and the thing should use its default behaviour.
+     */
+    @Nullable
     @Override
     FlexEventResult apply(String eventName, FlexEventContext context);
+
+    /**
+     * If true, per-tick events for this handler are collected during the tick and passed to {@link #applyBatch} at the end of it.
+     */
+    default boolean supportsBatching()
+    {
+        return false;
+    }
+
+    /**
+     * Runs the handler for several events at once. The returned list must contain one result per context, in the same order.
+     * As with {@link #apply}, a null result means the default behaviour should be used for that context.
+     */
+    default List<FlexEventResult> applyBatch(String eventName, List<FlexEventContext> contexts)
+    {
+        var results = new ArrayList<FlexEventResult>(contexts.size());
+        for (FlexEventContext context : contexts)
+        {
+            results.add(apply(eventName, context));
+        }
+        return results;
+    }
 }
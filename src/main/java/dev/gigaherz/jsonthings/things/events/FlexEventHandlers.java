@@ -0,0 +1,41 @@
+package dev.gigaherz.jsonthings.things.events;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Table of event handlers for one thing, indexed by {@link FlexEventType#getId()}.
+ */
+public class FlexEventHandlers
+{
+    private static final FlexEventHandler[] EMPTY = new FlexEventHandler[0];
+
+    private FlexEventHandler[] handlers = EMPTY;
+
+    public void put(String eventName, FlexEventHandler handler)
+    {
+        put(FlexEventType.get(eventName), handler);
+    }
+
+    public void put(FlexEventType event, FlexEventHandler handler)
+    {
+        int id = event.getId();
+        if (id >= handlers.length)
+            handlers = Arrays.copyOf(handlers, id + 1);
+        handlers[id] = handler;
+    }
+
+    @Nullable
+    public FlexEventHandler get(String eventName)
+    {
+        var event = FlexEventType.find(eventName);
+        return event != null ? get(event) : null;
+    }
+
+    @Nullable
+    public FlexEventHandler get(FlexEventType event)
+    {
+        int id = event.getId();
+        return id < handlers.length ? handlers[id] : null;
+    }
+}
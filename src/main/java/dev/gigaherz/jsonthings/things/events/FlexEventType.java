@@ -0,0 +1,70 @@
+package dev.gigaherz.jsonthings.things.events;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interned event name, with a dense id used to index the per-thing handler tables.
+ */
+public final class FlexEventType
+{
+    // Looked up by name whenever an event is run through its name, so reads must not lock.
+    private static final Map<String, FlexEventType> registeredTypes = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    public static final FlexEventType USE = get("use");
+    public static final FlexEventType USE_ON_AIR = get("use_on_air");
+    public static final FlexEventType USE_ON_BLOCK = get("use_on_block");
+    public static final FlexEventType BEGIN_USING = get("begin_using");
+    public static final FlexEventType END_USING = get("end_using");
+    public static final FlexEventType STOPPED_USING = get("stopped_using");
+    public static final FlexEventType UPDATE = get("update");
+    public static final FlexEventType GET_CONTAINER_ITEM = get("get_container_item");
+    public static final FlexEventType POST_ATTACK = get("post_attack");
+    public static final FlexEventType POST_HURT = get("post_hurt");
+
+    private final String name;
+    private final int id;
+
+    private FlexEventType(String name, int id)
+    {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the event type with the given name, creating it if it isn't known yet.
+     */
+    public static FlexEventType get(String name)
+    {
+        var type = registeredTypes.get(name);
+        if (type != null)
+            return type;
+        // The mapping function runs at most once per name, so ids stay dense.
+        return registeredTypes.computeIfAbsent(name, n -> new FlexEventType(n, nextId.getAndIncrement()));
+    }
+
+    @Nullable
+    public static FlexEventType find(String name)
+    {
+        return registeredTypes.get(name);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
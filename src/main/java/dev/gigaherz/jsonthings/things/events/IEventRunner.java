@@ -11,11 +11,26 @@ public interface IEventRunner
     @Nullable
     FlexEventHandler getEventHandler(String eventName);
 
+    @Nullable
+    default FlexEventHandler getEventHandler(FlexEventType event)
+    {
+        return getEventHandler(event.getName());
+    }
+
+    default boolean hasEventHandler(FlexEventType event)
+    {
+        return getEventHandler(event) != null;
+    }
+
     default FlexEventResult runEvent(String eventName, FlexEventContext context, Supplier<FlexEventResult> defaultValue)
     {
         FlexEventHandler handler = getEventHandler(eventName);
         if (handler != null)
-            return handler.apply(eventName, context);
+        {
+            var result = EventProfiler.apply(this, handler, eventName, context);
+            if (result != null)
+                return result;
+        }
         return defaultValue.get();
     }
 
@@ -23,7 +38,39 @@ public interface IEventRunner
     {
         FlexEventHandler handler = getEventHandler(eventName);
         if (handler != null)
-            return handler.apply(eventName, context);
+        {
+            var result = EventProfiler.apply(this, handler, eventName, context);
+            if (result != null)
+                return result;
+        }
+        return defaultValue.call();
+    }
+
+    /**
+     * Runs the handler for the event, if there is one. The context is only built if a handler exists,
+     * so things without a handler for the event don't pay for creating it.
+     */
+    default FlexEventResult runEvent(FlexEventType event, Supplier<FlexEventContext> context, Supplier<FlexEventResult> defaultValue)
+    {
+        FlexEventHandler handler = getEventHandler(event);
+        if (handler != null)
+        {
+            var result = EventProfiler.apply(this, handler, event, context.get());
+            if (result != null)
+                return result;
+        }
+        return defaultValue.get();
+    }
+
+    default FlexEventResult runEventThrowing(FlexEventType event, Supplier<FlexEventContext> context, Callable<FlexEventResult> defaultValue) throws Exception
+    {
+        FlexEventHandler handler = getEventHandler(event);
+        if (handler != null)
+        {
+            var result = EventProfiler.apply(this, handler, event, context.get());
+            if (result != null)
+                return result;
+        }
         return defaultValue.call();
     }
 }
@@ -4,9 +4,12 @@ import com.google.common.collect.*;
 import dev.gigaherz.jsonthings.things.CompletionMode;
 import dev.gigaherz.jsonthings.things.IFlexItem;
 import dev.gigaherz.jsonthings.things.StackContext;
+import dev.gigaherz.jsonthings.things.events.BatchedUpdates;
 import dev.gigaherz.jsonthings.things.events.FlexEventContext;
 import dev.gigaherz.jsonthings.things.events.FlexEventHandler;
+import dev.gigaherz.jsonthings.things.events.FlexEventHandlers;
 import dev.gigaherz.jsonthings.things.events.FlexEventResult;
+import dev.gigaherz.jsonthings.things.events.FlexEventType;
 import dev.gigaherz.jsonthings.util.Utils;
 import net.minecraft.core.NonNullList;
 import net.minecraft.network.chat.Component;
@@ -55,7 +58,7 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     private final Multimap<CreativeModeTab, StackContext> perTabStacks = ArrayListMultimap.create();
     private final List<StackContext> searchTabStacks = Lists.newArrayList();
     private final Map<EquipmentSlot, Multimap<Attribute, AttributeModifier>> attributeModifiers = Maps.newHashMap();
-    private final Map<String, FlexEventHandler> eventHandlers = Maps.newHashMap();
+    private final FlexEventHandlers eventHandlers = new FlexEventHandlers();
 
     private UseAnim useAction;
     private int useTime;
@@ -121,6 +124,12 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
         return eventHandlers.get(eventName);
     }
 
+    @Override
+    public FlexEventHandler getEventHandler(FlexEventType event)
+    {
+        return eventHandlers.get(event);
+    }
+
     @Override
     public void addCreativeStack(StackContext stack, Iterable<CreativeModeTab> tabs)
     {
@@ -159,7 +168,7 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     {
         ItemStack heldItem = context.getItemInHand();
 
-        FlexEventResult result = runEvent("use_on_block", FlexEventContext.of(context), () -> new FlexEventResult(super.useOn(context), heldItem));
+        FlexEventResult result = runEvent(FlexEventType.USE_ON_BLOCK, () -> FlexEventContext.of(context), () -> new FlexEventResult(super.useOn(context), heldItem));
 
         if (result.stack() != heldItem)
         {
@@ -172,8 +181,8 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     @Override
     public void releaseUsing(ItemStack stack, Level worldIn, LivingEntity entityLiving, int timeLeft)
     {
-        runEvent("stopped_using",
-                FlexEventContext.of(worldIn, entityLiving, stack).with(FlexEventContext.TIME_LEFT, timeLeft),
+        runEvent(FlexEventType.STOPPED_USING,
+                () -> FlexEventContext.of(worldIn, entityLiving, stack).with(FlexEventContext.TIME_LEFT, timeLeft),
                 () -> {
                     super.releaseUsing(stack, worldIn, entityLiving, timeLeft);
                     return FlexEventResult.pass(stack);
@@ -185,11 +194,11 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     {
         Supplier<FlexEventResult> resultSupplier = () -> FlexEventResult.success(super.finishUsingItem(heldItem, worldIn, entityLiving));
 
-        FlexEventResult result = runEvent("end_using", FlexEventContext.of(worldIn, entityLiving, heldItem), resultSupplier);
+        FlexEventResult result = runEvent(FlexEventType.END_USING, () -> FlexEventContext.of(worldIn, entityLiving, heldItem), resultSupplier);
         if (result.result() != InteractionResult.SUCCESS)
             return result.stack();
 
-        return runEvent("use", FlexEventContext.of(worldIn, entityLiving, heldItem), resultSupplier).stack();
+        return runEvent(FlexEventType.USE, () -> FlexEventContext.of(worldIn, entityLiving, heldItem), resultSupplier).stack();
     }
 
     @Override
@@ -197,9 +206,9 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     {
         ItemStack heldItem = playerIn.getItemInHand(handIn);
         if (useTime > 0)
-            return runEvent("begin_using", FlexEventContext.of(worldIn, playerIn, handIn, heldItem), () -> FlexEventResult.of(super.use(worldIn, playerIn, handIn))).holder();
+            return runEvent(FlexEventType.BEGIN_USING, () -> FlexEventContext.of(worldIn, playerIn, handIn, heldItem), () -> FlexEventResult.of(super.use(worldIn, playerIn, handIn))).holder();
         else
-            return runEvent("use_on_air", FlexEventContext.of(worldIn, playerIn, handIn, heldItem), () -> FlexEventResult.of(super.use(worldIn, playerIn, handIn))).holder();
+            return runEvent(FlexEventType.USE_ON_AIR, () -> FlexEventContext.of(worldIn, playerIn, handIn, heldItem), () -> FlexEventResult.of(super.use(worldIn, playerIn, handIn))).holder();
     }
 
     @Override
@@ -225,8 +234,24 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
     @Override
     public void inventoryTick(ItemStack stack, Level worldIn, Entity entityIn, int itemSlot, boolean isSelected)
     {
-        FlexEventResult result = runEvent("update",
-                FlexEventContext.of(worldIn, entityIn, stack).with(FlexEventContext.SLOT, itemSlot).with(FlexEventContext.SELECTED, isSelected),
+        // Called for every stack in every inventory each tick, so skip even the lambdas when nothing is listening.
+        FlexEventHandler updateHandler = getEventHandler(FlexEventType.UPDATE);
+        if (updateHandler == null)
+        {
+            super.inventoryTick(stack, worldIn, entityIn, itemSlot, isSelected);
+            return;
+        }
+
+        if (updateHandler.supportsBatching())
+        {
+            BatchedUpdates.enqueue(updateHandler,
+                    FlexEventContext.of(worldIn, entityIn, stack).with(FlexEventContext.SLOT, itemSlot).with(FlexEventContext.SELECTED, isSelected),
+                    entityIn, itemSlot, stack, () -> super.inventoryTick(stack, worldIn, entityIn, itemSlot, isSelected));
+            return;
+        }
+
+        FlexEventResult result = runEvent(FlexEventType.UPDATE,
+                () -> FlexEventContext.of(worldIn, entityIn, stack).with(FlexEventContext.SLOT, itemSlot).with(FlexEventContext.SELECTED, isSelected),
                 () -> {
                     super.inventoryTick(stack, worldIn, entityIn, itemSlot, isSelected);
                     return FlexEventResult.pass(stack);
@@ -239,7 +264,7 @@ public class FlexBlockItem extends BlockItem implements IFlexItem
 
     private InteractionResultHolder<ItemStack> doContainerItem(ItemStack stack)
     {
-        return runEvent("get_container_item", FlexEventContext.of(stack), () -> {
+        return runEvent(FlexEventType.GET_CONTAINER_ITEM, () -> FlexEventContext.of(stack), () -> {
             InteractionResult typeIn = super.hasContainerItem(stack) ? InteractionResult.SUCCESS : InteractionResult.PASS;
             if (typeIn == InteractionResult.SUCCESS)
                 return new FlexEventResult(typeIn, super.getContainerItem(stack));
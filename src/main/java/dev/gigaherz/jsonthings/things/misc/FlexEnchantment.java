@@ -1,9 +1,10 @@
 package dev.gigaherz.jsonthings.things.misc;
 
-import com.google.common.collect.Maps;
 import dev.gigaherz.jsonthings.things.events.FlexEventContext;
 import dev.gigaherz.jsonthings.things.events.FlexEventHandler;
+import dev.gigaherz.jsonthings.things.events.FlexEventHandlers;
 import dev.gigaherz.jsonthings.things.events.FlexEventResult;
+import dev.gigaherz.jsonthings.things.events.FlexEventType;
 import dev.gigaherz.jsonthings.things.events.IEventRunner;
 import net.minecraft.advancements.critereon.ItemPredicate;
 import net.minecraft.world.entity.Entity;
@@ -14,12 +15,11 @@ import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.item.enchantment.EnchantmentCategory;
 
 import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
 
 public class FlexEnchantment extends Enchantment implements IEventRunner
 {
-    private final Map<String, FlexEventHandler> eventHandlers = Maps.newHashMap();
+    private final FlexEventHandlers eventHandlers = new FlexEventHandlers();
     private int minLevel;
     private int maxLevel;
     private int baseCost;
@@ -50,6 +50,12 @@ public class FlexEnchantment extends Enchantment implements IEventRunner
         return eventHandlers.get(eventName);
     }
 
+    @Override
+    public FlexEventHandler getEventHandler(FlexEventType event)
+    {
+        return eventHandlers.get(event);
+    }
+
     public void setMinLevel(int minLevel)
     {
         this.minLevel = minLevel;
@@ -188,7 +194,7 @@ public class FlexEnchantment extends Enchantment implements IEventRunner
     @Override
     public void doPostAttack(LivingEntity user, Entity target, int level)
     {
-        runEvent("post_attack", FlexEventContext.of(this, level).with(FlexEventContext.ATTACKER, user).with(FlexEventContext.TARGET, target), () -> {
+        runEvent(FlexEventType.POST_ATTACK, () -> FlexEventContext.of(this, level).with(FlexEventContext.ATTACKER, user).with(FlexEventContext.TARGET, target), () -> {
             super.doPostAttack(user, target, level);
             return FlexEventResult.success();
         });
@@ -197,7 +203,7 @@ public class FlexEnchantment extends Enchantment implements IEventRunner
     @Override
     public void doPostHurt(LivingEntity user, Entity attacker, int level)
     {
-        runEvent("post_hurt", FlexEventContext.of(this, level).with(FlexEventContext.ATTACKER, attacker).with(FlexEventContext.TARGET, user), () -> {
+        runEvent(FlexEventType.POST_HURT, () -> FlexEventContext.of(this, level).with(FlexEventContext.ATTACKER, attacker).with(FlexEventContext.TARGET, user), () -> {
             super.doPostHurt(user, attacker, level);
             return FlexEventResult.success();
         });
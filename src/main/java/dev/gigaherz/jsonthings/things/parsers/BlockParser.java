@@ -10,10 +10,12 @@ import dev.gigaherz.jsonthings.things.builders.ItemBuilder;
 import dev.gigaherz.jsonthings.things.properties.PropertyType;
 import dev.gigaherz.jsonthings.things.serializers.MaterialColors;
 import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
+import dev.gigaherz.jsonthings.things.shapes.ShapeInterner;
 import dev.gigaherz.jsonthings.util.parse.JParse;
 import dev.gigaherz.jsonthings.util.parse.value.Any;
 import dev.gigaherz.jsonthings.util.parse.value.ObjValue;
 import net.minecraft.core.Direction;
+import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.properties.Property;
@@ -26,14 +28,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class BlockParser extends ThingParser<BlockBuilder>
 {
     public static final Logger LOGGER = LogManager.getLogger();
 
+    @Nullable
+    private List<CompletableFuture<?>> prebuilding;
+
     public BlockParser(IEventBus bus)
     {
         super(GSON, "block");
@@ -45,8 +50,57 @@ public class BlockParser extends ThingParser<BlockBuilder>
     {
         LOGGER.info("Started registering Block things, errors about unexpected registry domains are harmless...");
         IForgeRegistry<Block> registry = event.getRegistry();
+        finishPrebuilding();
         getBuilders().forEach(thing -> registry.register(thing.get().self().setRegistryName(thing.getRegistryName())));
+        DynamicShape.startWarmUp();
         LOGGER.info("Done processing thingpack Blocks.");
+        LOGGER.debug("Shape pool contains {} unique shapes, {} duplicates were merged.", ShapeInterner.getUniqueCount(), ShapeInterner.getDeduplicatedCount());
+    }
+
+    @Override
+    public void finishLoading()
+    {
+        getBuilders().forEach(BlockBuilder::resolveParents);
+    }
+
+    /**
+     * Builds the blocks on the background executor, ahead of the block registry event.
+     * Building a block doesn't touch the block registry, and creating the state definition of a block with many properties
+     * (and baking its shapes) is the expensive part, so this leaves only the registration itself for the event.
+     * Must be called after every parser has finished loading, since blocks use the materials and shapes they register.
+     */
+    public void startPrebuilding()
+    {
+        var builders = getBuilders();
+        var futures = new ArrayList<CompletableFuture<?>>(builders.size());
+        for (BlockBuilder builder : builders)
+        {
+            futures.add(CompletableFuture.runAsync(builder::get, Util.backgroundExecutor()));
+        }
+        prebuilding = futures;
+    }
+
+    private void finishPrebuilding()
+    {
+        if (prebuilding == null)
+            return;
+
+        // Joined in registration order, so that the reported error is the same one the serial path would have reported.
+        var futures = prebuilding;
+        prebuilding = null;
+        for (var future : futures)
+        {
+            try
+            {
+                future.join();
+            }
+            catch (CompletionException e)
+            {
+                if (e.getCause() instanceof RuntimeException re)
+                    throw re;
+                throw e;
+            }
+        }
     }
 
     @Override
@@ -42,6 +42,12 @@ public class ItemParser extends ThingParser<ItemBuilder>
         LOGGER.info("Done processing thingpack Items.");
     }
 
+    @Override
+    public void finishLoading()
+    {
+        getBuilders().forEach(ItemBuilder::resolveParents);
+    }
+
     @Override
     public ItemBuilder processThing(ResourceLocation key, JsonObject data)
     {
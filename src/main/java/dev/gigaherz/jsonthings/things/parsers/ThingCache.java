@@ -0,0 +1,295 @@
+package dev.gigaherz.jsonthings.things.parsers;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.*;
+import com.google.gson.internal.LazilyParsedNumber;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.repository.Pack;
+import net.minecraft.server.packs.repository.PackRepository;
+import net.minecraftforge.fml.ModList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the json files read by the thing parsers, stored in a compact binary form.
+ * The cache is keyed by a fingerprint of the selected packs, so any change to their files,
+ * the pack selection or the installed mods causes the files to be read and parsed again.
+ * Only the json parsing is skipped: the cached trees still go through the parsers and builders on every load.
+ */
+public class ThingCache
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int MAGIC = 0x4A544843; // JTHC
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_FALSE = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_NUMBER = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_ARRAY = 5;
+    private static final byte TYPE_OBJECT = 6;
+
+    private final File cacheDir;
+    private final HashCode fingerprint;
+
+    public ThingCache(File cacheDir, HashCode fingerprint)
+    {
+        this.cacheDir = cacheDir;
+        this.fingerprint = fingerprint;
+    }
+
+    @Nullable
+    public Map<ResourceLocation, JsonElement> read(String thingType)
+    {
+        File file = getCacheFile(thingType);
+        if (!file.exists())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+            if (!HashCode.fromBytes(hash).equals(fingerprint))
+                return null;
+
+            int count = in.readInt();
+            Map<ResourceLocation, JsonElement> map = new HashMap<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                var key = new ResourceLocation(in.readUTF(), in.readUTF());
+                map.put(key, readElement(in));
+            }
+            return map;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOGGER.warn("Could not read cached " + thingType + " things, the files will be parsed again.", e);
+            return null;
+        }
+    }
+
+    public void write(String thingType, Map<ResourceLocation, JsonElement> data)
+    {
+        if (!cacheDir.exists() && !cacheDir.mkdirs())
+        {
+            LOGGER.warn("Could not create thing cache directory " + cacheDir);
+            return;
+        }
+
+        File file = getCacheFile(thingType);
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            byte[] hash = fingerprint.asBytes();
+            out.writeByte(hash.length);
+            out.write(hash);
+
+            out.writeInt(data.size());
+            for (Map.Entry<ResourceLocation, JsonElement> entry : data.entrySet())
+            {
+                out.writeUTF(entry.getKey().getNamespace());
+                out.writeUTF(entry.getKey().getPath());
+                writeElement(out, entry.getValue());
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not write cached " + thingType + " things.", e);
+            return;
+        }
+
+        try
+        {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Could not write cached " + thingType + " things.", e);
+        }
+    }
+
+    private File getCacheFile(String thingType)
+    {
+        return new File(cacheDir, thingType.replace('/', '_') + ".bin");
+    }
+
+    private static void writeElement(DataOutputStream out, JsonElement element) throws IOException
+    {
+        if (element.isJsonNull())
+        {
+            out.writeByte(TYPE_NULL);
+        }
+        else if (element.isJsonObject())
+        {
+            var obj = element.getAsJsonObject();
+            out.writeByte(TYPE_OBJECT);
+            out.writeInt(obj.size());
+            for (Map.Entry<String, JsonElement> entry : obj.entrySet())
+            {
+                writeString(out, entry.getKey());
+                writeElement(out, entry.getValue());
+            }
+        }
+        else if (element.isJsonArray())
+        {
+            var arr = element.getAsJsonArray();
+            out.writeByte(TYPE_ARRAY);
+            out.writeInt(arr.size());
+            for (JsonElement e : arr)
+            {
+                writeElement(out, e);
+            }
+        }
+        else
+        {
+            var prim = element.getAsJsonPrimitive();
+            if (prim.isBoolean())
+            {
+                out.writeByte(prim.getAsBoolean() ? TYPE_TRUE : TYPE_FALSE);
+            }
+            else if (prim.isNumber())
+            {
+                // Stored as the original text, so that integer and floating point values are reproduced exactly.
+                out.writeByte(TYPE_NUMBER);
+                writeString(out, prim.getAsString());
+            }
+            else
+            {
+                out.writeByte(TYPE_STRING);
+                writeString(out, prim.getAsString());
+            }
+        }
+    }
+
+    private static JsonElement readElement(DataInputStream in) throws IOException
+    {
+        byte type = in.readByte();
+        switch (type)
+        {
+            case TYPE_NULL:
+                return JsonNull.INSTANCE;
+            case TYPE_FALSE:
+                return new JsonPrimitive(false);
+            case TYPE_TRUE:
+                return new JsonPrimitive(true);
+            case TYPE_NUMBER:
+                return new JsonPrimitive(new LazilyParsedNumber(readString(in)));
+            case TYPE_STRING:
+                return new JsonPrimitive(readString(in));
+            case TYPE_ARRAY:
+            {
+                int size = in.readInt();
+                JsonArray arr = new JsonArray(size);
+                for (int i = 0; i < size; i++)
+                {
+                    arr.add(readElement(in));
+                }
+                return arr;
+            }
+            case TYPE_OBJECT:
+            {
+                int size = in.readInt();
+                JsonObject obj = new JsonObject();
+                for (int i = 0; i < size; i++)
+                {
+                    String key = readString(in);
+                    obj.add(key, readElement(in));
+                }
+                return obj;
+            }
+        }
+        throw new IOException("Unknown element type " + type + " in thing cache.");
+    }
+
+    // DataOutput#writeUTF is limited to 64k bytes, which long strings (eg. lore, nbt) can exceed.
+    private static void writeString(DataOutputStream out, String str) throws IOException
+    {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes a fingerprint of the selected packs. Only file metadata is hashed (path, size and modification time),
+     * so the check itself doesn't need to read the contents of any file: zipped thingpacks are hashed as a whole,
+     * folder thingpacks and mods loaded from a folder file by file, and other mods by their mod file.
+     */
+    public static HashCode computeFingerprint(PackRepository packList, File thingPacksFolder)
+    {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(VERSION);
+
+        for (Pack pack : packList.getSelectedPacks())
+        {
+            var id = pack.getId();
+            hasher.putString(id, StandardCharsets.UTF_8);
+            // Mod packs are covered by the mod files below.
+            if (id.startsWith("file/"))
+                hashPath(hasher, new File(thingPacksFolder, id.substring("file/".length())).toPath());
+        }
+
+        ModList.get().getModFiles().forEach(modFile -> hashPath(hasher, modFile.getFile().getFilePath()));
+
+        return hasher.hash();
+    }
+
+    private static void hashPath(Hasher hasher, Path path)
+    {
+        if (!Files.isDirectory(path))
+        {
+            hashFile(hasher, path.toString(), path);
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(path))
+        {
+            files.filter(Files::isRegularFile).sorted(Comparator.comparing(Path::toString)).forEach(file -> hashFile(hasher, path.relativize(file).toString(), file));
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            // Make sure the cache doesn't match if we could not determine the state of the folder.
+            LOGGER.warn("Could not fingerprint " + path + ", the thing cache will not be used.", e);
+            hasher.putLong(System.nanoTime());
+        }
+    }
+
+    private static void hashFile(Hasher hasher, String name, Path path)
+    {
+        hasher.putString(name, StandardCharsets.UTF_8);
+        try
+        {
+            hasher.putLong(Files.size(path));
+            hasher.putLong(Files.getLastModifiedTime(path).toMillis());
+        }
+        catch (IOException e)
+        {
+            hasher.putLong(-1);
+        }
+    }
+}
@@ -6,55 +6,210 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
 import dev.gigaherz.jsonthings.things.StackContext;
 import dev.gigaherz.jsonthings.things.builders.BaseBuilder;
+import dev.gigaherz.jsonthings.util.JfrEvents;
 import dev.gigaherz.jsonthings.util.parse.value.ObjValue;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
 import net.minecraft.ReportedException;
+import net.minecraft.Util;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.TagParser;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.ResourceManager;
-import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
+import net.minecraft.util.GsonHelper;
 import net.minecraft.util.profiling.ProfilerFiller;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
-public abstract class ThingParser<TBuilder extends BaseBuilder<?>> extends SimpleJsonResourceReloadListener
+public abstract class ThingParser<TBuilder extends BaseBuilder<?>> extends SimplePreparableReloadListener<Map<ResourceLocation, Supplier<JsonElement>>>
 {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String JSON_EXTENSION = ".json";
+
     protected static Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
 
-    private final Map<ResourceLocation, TBuilder> buildersByName = Maps.newHashMap();
-    private final List<TBuilder> builders = Lists.newArrayList();
+    private final Map<ResourceLocation, TBuilder> buildersByName = Maps.newConcurrentMap();
+    private final List<TBuilder> builders = Collections.synchronizedList(Lists.newArrayList());
     private final String thingType;
     private final Gson gson;
 
+    // Duration of the last load, in nanoseconds, for diagnostics.
+    private volatile long prepareTime;
+    private volatile long applyTime;
+
     public ThingParser(Gson gson, String thingType)
     {
-        super(gson, thingType);
         this.gson = gson;
         this.thingType = thingType;
     }
 
     @Override
-    protected void apply(Map<ResourceLocation, JsonElement> objectIn, ResourceManager resourceManagerIn, ProfilerFiller profilerIn)
+    protected Map<ResourceLocation, Supplier<JsonElement>> prepare(ResourceManager pResourceManager, ProfilerFiller pProfiler)
+    {
+        var start = System.nanoTime();
+        try
+        {
+            return prepareInternal(pResourceManager);
+        }
+        finally
+        {
+            prepareTime = System.nanoTime() - start;
+        }
+    }
+
+    private Map<ResourceLocation, Supplier<JsonElement>> prepareInternal(ResourceManager pResourceManager)
+    {
+        var cache = ThingResourceManager.instance().getCache();
+        if (cache == null)
+            return readFiles(pResourceManager);
+
+        var cached = cache.read(thingType);
+        if (cached == null)
+        {
+            cached = new HashMap<>();
+            for (var entry : readFiles(pResourceManager).entrySet())
+            {
+                var json = entry.getValue().get();
+                if (json != null)
+                    cached.put(entry.getKey(), json);
+            }
+            cache.write(thingType, cached);
+        }
+
+        var map = new HashMap<ResourceLocation, Supplier<JsonElement>>(cached.size());
+        cached.forEach((key, json) -> map.put(key, () -> json));
+        return map;
+    }
+
+    /**
+     * Reads the contents of every file, but doesn't parse them yet. The json tree of each file is built right before
+     * it's processed, and can be collected as soon as its builder exists, so only the raw text of the files
+     * (a fraction of the size of their trees) has to be held between prepare and apply.
+     */
+    private Map<ResourceLocation, Supplier<JsonElement>> readFiles(ResourceManager pResourceManager)
     {
-        objectIn.forEach(this::parseFromElement);
+        var map = new HashMap<ResourceLocation, Supplier<JsonElement>>();
+        for (ResourceLocation file : pResourceManager.listResources(thingType, name -> name.endsWith(JSON_EXTENSION)))
+        {
+            var path = file.getPath();
+            var id = new ResourceLocation(file.getNamespace(), path.substring(thingType.length() + 1, path.length() - JSON_EXTENSION.length()));
+            try (var resource = pResourceManager.getResource(file);
+                 var stream = resource.getInputStream())
+            {
+                var contents = stream.readAllBytes();
+                if (map.put(id, () -> parseContents(id, file, contents)) != null)
+                    throw new IllegalStateException("Duplicate data file ignored with ID " + id);
+            }
+            catch (IllegalArgumentException | IOException e)
+            {
+                LOGGER.error("Couldn't parse data file {} from {}", id, file, e);
+            }
+        }
+        return map;
+    }
+
+    @Nullable
+    private JsonElement parseContents(ResourceLocation id, ResourceLocation file, byte[] contents)
+    {
+        try (var reader = new InputStreamReader(new ByteArrayInputStream(contents), StandardCharsets.UTF_8))
+        {
+            var json = GsonHelper.fromJson(gson, reader, JsonElement.class);
+            if (json == null)
+                LOGGER.error("Couldn't load data file {} from {} as it's null or empty", id, file);
+            return json;
+        }
+        catch (IllegalArgumentException | IOException | JsonParseException e)
+        {
+            LOGGER.error("Couldn't parse data file {} from {}", id, file, e);
+            return null;
+        }
+    }
+
+    @Override
+    protected void apply(Map<ResourceLocation, Supplier<JsonElement>> objectIn, ResourceManager resourceManagerIn, ProfilerFiller profilerIn)
+    {
+        var start = System.nanoTime();
+        var event = new JfrEvents.ParserApply();
+        event.begin();
+
+        if (JsonThingsConfig.parallelParsing)
+            parseParallel(objectIn);
+        else
+            objectIn.forEach(this::parseFromSupplier);
+
+        event.fileCount = objectIn.size();
+        event.commit(null, thingType);
+        applyTime = System.nanoTime() - start;
+    }
+
+    @Nullable
+    private TBuilder parseFromSupplier(ResourceLocation key, Supplier<JsonElement> contents)
+    {
+        var json = contents.get();
+        return json != null ? parseFromElement(key, json) : null;
+    }
+
+    /**
+     * Only the json parsing of each file runs on the background executor. The things are processed on this thread,
+     * in the same order as the serial path, since processing a thing can register properties and shapes,
+     * or parse things of other types (such as the item of a block), none of which are safe to do concurrently.
+     */
+    private void parseParallel(Map<ResourceLocation, Supplier<JsonElement>> objectIn)
+    {
+        var keys = new ArrayList<ResourceLocation>(objectIn.size());
+        var futures = new ArrayList<CompletableFuture<JsonElement>>(objectIn.size());
+        objectIn.forEach((key, contents) -> {
+            keys.add(key);
+            futures.add(CompletableFuture.supplyAsync(contents, Util.backgroundExecutor()));
+        });
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            try
+            {
+                var json = futures.get(i).join();
+                if (json != null)
+                    parseFromElement(keys.get(i), json);
+            }
+            catch (RuntimeException e)
+            {
+                // The load is aborted, so don't keep parsing the files that haven't started yet.
+                futures.forEach(f -> f.cancel(false));
+                if (e instanceof CompletionException && e.getCause() instanceof RuntimeException re)
+                    throw re;
+                throw e;
+            }
+        }
     }
 
     protected abstract TBuilder processThing(ResourceLocation key, JsonObject data);
 
     public TBuilder parseFromElement(ResourceLocation key, JsonElement json)
     {
+        var event = new JfrEvents.ProcessThing();
+        event.begin();
+        var previousResource = JfrEvents.setCurrentResource(key);
         try
         {
             TBuilder builder = processThing(key, json.getAsJsonObject());
             buildersByName.put(key, builder);
             builders.add(builder);
+            event.commit(key, thingType);
             return builder;
         }
         catch (Exception e)
@@ -66,6 +221,10 @@ public abstract class ThingParser<TBuilder extends BaseBuilder<?>> extends Simpl
 
             throw new ReportedException(crashReport);
         }
+        finally
+        {
+            JfrEvents.setCurrentResource(previousResource);
+        }
     }
 
     public List<TBuilder> getBuilders()
@@ -140,6 +299,22 @@ public abstract class ThingParser<TBuilder extends BaseBuilder<?>> extends Simpl
         return thingType;
     }
 
+    /**
+     * Time spent reading the files during the last load, in nanoseconds.
+     */
+    public long getPrepareTime()
+    {
+        return prepareTime;
+    }
+
+    /**
+     * Time spent parsing the files into builders during the last load, in nanoseconds.
+     */
+    public long getApplyTime()
+    {
+        return applyTime;
+    }
+
     public TBuilder getOrCrash(ResourceLocation name)
     {
         TBuilder b = buildersByName.get(name);
@@ -6,8 +6,13 @@ import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
 import dev.gigaherz.jsonthings.util.CustomPackType;
+import dev.gigaherz.jsonthings.util.JfrEvents;
+import dev.gigaherz.jsonthings.util.ThingpackRepositorySource;
+import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.repository.FolderRepositorySource;
+import net.minecraft.server.packs.repository.Pack;
 import net.minecraft.server.packs.repository.PackRepository;
 import net.minecraft.server.packs.repository.PackSource;
 import net.minecraft.server.packs.repository.RepositorySource;
@@ -18,9 +23,11 @@ import net.minecraft.util.Unit;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.loading.FMLPaths;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,17 +51,23 @@ public class ThingResourceManager
     private static final Set<String> disabledPacks = Sets.newHashSet();
 
     private final ReloadableResourceManager resourceManager;
+    // The vanilla finder is used when the thingpacks are offered as resource and data packs, the other one when loading things.
     private final RepositorySource folderPackFinder;
+    private final RepositorySource thingPackFinder;
     private final PackRepository packList;
 
     private final List<ThingParser<?>> thingParsers = Lists.newArrayList();
     private final Map<String, ThingParser<?>> parsersMap = Maps.newHashMap();
 
+    @Nullable
+    private ThingCache cache;
+
     private ThingResourceManager()
     {
         resourceManager = new SimpleReloadableResourceManager(CustomPackType.THINGS);
         folderPackFinder = new FolderRepositorySource(getThingPacksLocation(), PackSource.DEFAULT);
-        packList = new PackRepository(CustomPackType.THINGS, folderPackFinder);
+        thingPackFinder = new ThingpackRepositorySource(getThingPacksLocation(), PackSource.DEFAULT);
+        packList = new PackRepository(CustomPackType.THINGS, thingPackFinder);
     }
 
     public <TParser extends ThingParser<?>> TParser registerParser(TParser parser)
@@ -84,6 +97,17 @@ public class ThingResourceManager
         return thingpacks;
     }
 
+    public File getCacheLocation()
+    {
+        return FMLPaths.GAMEDIR.get().resolve("jsonthings-cache").toFile();
+    }
+
+    @Nullable
+    public ThingCache getCache()
+    {
+        return cache;
+    }
+
     /**
      * Call during mod construction **without enqueueWork**!
      */
@@ -107,8 +131,12 @@ public class ThingResourceManager
 
         loadConfig();
 
+        cache = JsonThingsConfig.thingCache
+                ? new ThingCache(getCacheLocation(), ThingCache.computeFingerprint(packList, getThingPacksLocation()))
+                : null;
+
         return resourceManager
-                .reload(backgroundExecutor, gameExecutor, packList.openAllSelected(), CompletableFuture.completedFuture(Unit.INSTANCE))
+                .reload(backgroundExecutor, gameExecutor, openSelectedPacks(), CompletableFuture.completedFuture(Unit.INSTANCE))
                 .whenComplete((unit, throwable) -> {
                     if (throwable != null)
                     {
@@ -118,9 +146,29 @@ public class ThingResourceManager
                 .thenApply((unit) -> this);
     }
 
+    private List<PackResources> openSelectedPacks()
+    {
+        var packs = new ArrayList<PackResources>();
+        for (Pack pack : packList.getSelectedPacks())
+        {
+            var event = new JfrEvents.PackOpen();
+            event.begin();
+            packs.add(pack.open());
+            event.commit(pack.getId(), "thingpack");
+        }
+        return packs;
+    }
+
     public void finishLoading()
     {
         thingParsers.forEach(ThingParser::finishLoading);
+        if (JsonThingsConfig.hotReload)
+            ThingpackWatcher.start(this);
+    }
+
+    public List<ThingParser<?>> getThingParsers()
+    {
+        return Collections.unmodifiableList(thingParsers);
     }
 
     public PackRepository getRepository()
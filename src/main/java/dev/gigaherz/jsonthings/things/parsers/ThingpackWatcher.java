@@ -0,0 +1,456 @@
+package dev.gigaherz.jsonthings.things.parsers;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import dev.gigaherz.jsonthings.JsonThings;
+import dev.gigaherz.jsonthings.things.ThingRegistries;
+import dev.gigaherz.jsonthings.things.scripting.ScriptParser;
+import dev.gigaherz.jsonthings.things.shapes.DynamicShape;
+import dev.gigaherz.jsonthings.util.CustomPackType;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.repository.Pack;
+import net.minecraft.server.packs.resources.SimpleResource;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the folder thingpacks while the game is running, and applies the changes that don't need new registry entries:
+ * scripts are replaced in place, and shapes (shape files, and the inline shapes of block files) are replaced and rebaked.
+ * Any other change is reported as needing a restart. Only the changed files are read, so a reload costs as much as the change.
+ * Changes to files that a higher priority pack overrides are ignored, same as they would be after a restart.
+ * Only unzipped packs in the thingpacks folder are watched, changes to zipped packs and mod resources need a restart.
+ */
+@Mod.EventBusSubscriber(modid = JsonThings.MODID)
+public class ThingpackWatcher
+{
+    public static final Logger LOGGER = LogManager.getLogger();
+
+    private static final Gson GSON = new Gson();
+    private static final List<String> SHAPE_KEYS = List.of("shape", "collision_shape", "raytrace_shape", "render_shape");
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    @Nullable
+    private static ThingpackWatcher instance;
+    // Changes made before the dedicated server started, applied once it has.
+    private static final Queue<Runnable> waitingForServer = new ConcurrentLinkedQueue<>();
+
+    private final ThingResourceManager manager;
+    private final Path root;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    // Hash of the parts of each loaded file that can't be reloaded, to tell which changes need a restart.
+    private final Map<Path, HashCode> loadedContents = new HashMap<>();
+
+    private ThingpackWatcher(ThingResourceManager manager, Path root, WatchService watchService)
+    {
+        this.manager = manager;
+        this.root = root;
+        this.watchService = watchService;
+    }
+
+    public static synchronized void start(ThingResourceManager manager)
+    {
+        if (instance != null)
+            return;
+
+        var root = manager.getThingPacksLocation().toPath();
+        try
+        {
+            instance = new ThingpackWatcher(manager, root, root.getFileSystem().newWatchService());
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Could not watch the thingpacks folder, hot reload is disabled.", e);
+            return;
+        }
+
+        var thread = new Thread(instance::run, "JsonThings Thingpack Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run()
+    {
+        try
+        {
+            registerTree(root, path -> {
+                var hash = hashLoadedContents(path);
+                if (hash != null)
+                    loadedContents.put(path, hash);
+            });
+            LOGGER.info("Watching {} for thingpack changes.", root);
+
+            while (true)
+            {
+                var changed = new LinkedHashSet<Path>();
+                collect(watchService.take(), changed);
+
+                // Editors often save a file in several steps, so wait until the changes settle.
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                {
+                    collect(key, changed);
+                }
+
+                processChanges(changed);
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Shutting down.
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Error watching the thingpacks folder, hot reload is disabled.", e);
+        }
+    }
+
+    private void registerTree(Path start, Consumer<Path> fileVisitor) throws IOException
+    {
+        Files.walkFileTree(start, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                fileVisitor.accept(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException
+    {
+        var dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == OVERFLOW)
+            {
+                LOGGER.warn("Too many thingpack changes at once, some of them may have been missed. Restart the game to make sure everything is up to date.");
+                continue;
+            }
+            if (dir == null)
+                continue;
+
+            var path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+                registerTree(path, changed::add);
+            else
+                changed.add(path);
+        }
+        if (!key.reset())
+            watchedDirs.remove(key);
+    }
+
+    private void processChanges(Set<Path> changed)
+    {
+        var start = System.nanoTime();
+        var pending = new ArrayList<Consumer<Set<Block>>>();
+        for (Path path : changed)
+        {
+            var file = ThingFile.of(root, path);
+            if (file == null || !manager.getRepository().getSelectedIds().contains(file.packId()) || isOverridden(file))
+                continue;
+
+            if (file.type().equals(ScriptParser.SCRIPTS_FOLDER))
+            {
+                if (!file.fileName().endsWith(ScriptParser.JS_EXTENSION))
+                    continue;
+                if (Files.exists(path))
+                    prepareScript(path, file, pending);
+                else
+                    LOGGER.warn("Script {} was deleted, things using it will keep running it until the game is restarted.", path);
+                continue;
+            }
+
+            if (!file.fileName().endsWith(".json"))
+                continue;
+
+            var loaded = loadedContents.get(path);
+            if (loaded == null || !Files.exists(path))
+            {
+                LOGGER.warn("Thing file {} was added or removed, the game needs to be restarted to apply this change.", path);
+            }
+            else if (!loaded.equals(hashLoadedContents(path)))
+            {
+                LOGGER.warn("Thing file {} was modified, the game needs to be restarted to apply this change. Only scripts and shapes can be reloaded.", path);
+            }
+            else if (file.type().equals("shape"))
+            {
+                prepareShapeFile(path, file, pending);
+            }
+            else if (file.type().equals("block"))
+            {
+                prepareBlockShapes(path, file, pending);
+            }
+        }
+
+        if (pending.isEmpty())
+            return;
+
+        // Files are read and parsed on this thread, only swapping in the results happens on the game thread.
+        runOnGameThread(() -> {
+            var affectedBlocks = Collections.<Block>newSetFromMap(new IdentityHashMap<>());
+            pending.forEach(change -> change.accept(affectedBlocks));
+            for (Block block : affectedBlocks)
+            {
+                block.getStateDefinition().getPossibleStates().forEach(BlockState::initCache);
+            }
+            LOGGER.info("Applied {} thingpack changes in {}ms.", pending.size(), (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    /**
+     * True if a pack selected above the one containing the file provides the same resource, so the change has no effect.
+     */
+    private boolean isOverridden(ThingFile file)
+    {
+        var location = new ResourceLocation(file.namespace(), file.type() + "/" + file.fileName());
+        boolean above = false;
+        // Selected packs are ordered from lowest to highest priority.
+        for (Pack pack : manager.getRepository().getSelectedPacks())
+        {
+            if (!above)
+            {
+                above = pack.getId().equals(file.packId());
+                continue;
+            }
+            try (var resources = pack.open())
+            {
+                if (resources.hasResource(CustomPackType.THINGS, location))
+                    return true;
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.warn("Could not check pack " + pack.getId() + " for " + location + ".", e);
+            }
+        }
+        return false;
+    }
+
+    private void prepareScript(Path path, ThingFile file, List<Consumer<Set<Block>>> pending)
+    {
+        var name = file.fileName();
+        var id = new ResourceLocation(file.namespace(), name.substring(0, name.length() - ScriptParser.JS_EXTENSION_LENGTH));
+        var location = new ResourceLocation(file.namespace(), ScriptParser.SCRIPTS_FOLDER + "/" + name);
+        byte[] contents;
+        try
+        {
+            contents = Files.readAllBytes(path);
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Error reading script " + path, e);
+            return;
+        }
+
+        pending.add(affectedBlocks -> {
+            try
+            {
+                ScriptParser.instance().reloadScript(id, new SimpleResource(file.packId(), location, new ByteArrayInputStream(contents), null));
+            }
+            catch (Exception e)
+            {
+                LOGGER.error("Error reloading script " + path + ", the previous version remains active.", e);
+            }
+        });
+    }
+
+    private void prepareShapeFile(Path path, ThingFile file, List<Consumer<Set<Block>>> pending)
+    {
+        var shape = ThingRegistries.DYNAMIC_SHAPES.get(file.thingId());
+        var json = readJson(path);
+        if (shape == null || json == null)
+            return;
+
+        try
+        {
+            var provider = DynamicShape.providerFromJson(json, name -> ThingRegistries.PROPERTIES.get(new ResourceLocation(name)));
+            pending.add(affectedBlocks -> shape.replaceShape(provider, affectedBlocks));
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.error("Error reloading shape " + path + ", the previous version remains active.", e);
+        }
+    }
+
+    private void prepareBlockShapes(Path path, ThingFile file, List<Consumer<Set<Block>>> pending)
+    {
+        var builder = JsonThings.blockParser.getBuildersMap().get(file.thingId());
+        var json = readJson(path);
+        if (builder == null || json == null || !json.isJsonObject())
+            return;
+        if (!builder.isBuilt())
+        {
+            LOGGER.warn("Block {} has not been registered yet, its shapes will be reloaded with the next change.", file.thingId());
+            return;
+        }
+
+        var obj = json.getAsJsonObject();
+        var stateDefinition = builder.get().self().getStateDefinition();
+        try
+        {
+            for (String key : SHAPE_KEYS)
+            {
+                // Names of shared shapes are part of the loaded contents, so only inline shapes can differ here.
+                var value = obj.get(key);
+                if (value == null || value.isJsonPrimitive())
+                    continue;
+
+                var shape = switch (key)
+                        {
+                            case "shape" -> builder.getGeneralShape();
+                            case "collision_shape" -> builder.getCollisionShape();
+                            case "raytrace_shape" -> builder.getRaytraceShape();
+                            default -> builder.getRenderShape();
+                        };
+                if (shape == null)
+                    continue;
+
+                var provider = DynamicShape.providerFromJson(value, stateDefinition::getProperty);
+                pending.add(affectedBlocks -> shape.replaceShape(provider, affectedBlocks));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.error("Error reloading the shapes of block " + path + ", the previous version remains active.", e);
+        }
+    }
+
+    private static void runOnGameThread(Runnable runnable)
+    {
+        var server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null)
+        {
+            server.execute(runnable);
+            return;
+        }
+        if (FMLEnvironment.dist == Dist.CLIENT)
+        {
+            // No world is open, so the client thread is the only one using the scripts and shapes.
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> JsonThings.ClientHandlers.runOnClientThread(runnable));
+            return;
+        }
+        // A dedicated server that hasn't started yet.
+        waitingForServer.add(runnable);
+    }
+
+    @SubscribeEvent
+    public static void serverStarted(ServerStartedEvent event)
+    {
+        Runnable runnable;
+        while ((runnable = waitingForServer.poll()) != null)
+        {
+            event.getServer().execute(runnable);
+        }
+    }
+
+    @Nullable
+    private static JsonElement readJson(Path path)
+    {
+        try
+        {
+            return JsonParser.parseString(Files.readString(path, StandardCharsets.UTF_8));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOGGER.error("Error reading " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Hashes what a file contributes to the registries. Shape files can always be reloaded, for block files
+     * that's everything but the inline shapes, and for other things it's the whole file.
+     */
+    @Nullable
+    private HashCode hashLoadedContents(Path path)
+    {
+        var file = ThingFile.of(root, path);
+        if (file == null || !file.fileName().endsWith(".json"))
+            return null;
+
+        try
+        {
+            if (file.type().equals("shape"))
+                return Hashing.murmur3_128().hashBytes(new byte[0]);
+
+            var bytes = Files.readAllBytes(path);
+            if (file.type().equals("block"))
+            {
+                var json = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8));
+                if (json.isJsonObject())
+                {
+                    var obj = json.getAsJsonObject().deepCopy();
+                    for (String key : SHAPE_KEYS)
+                    {
+                        var value = obj.get(key);
+                        if (value != null && !value.isJsonPrimitive())
+                            obj.remove(key);
+                    }
+                    bytes = GSON.toJson(obj).getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            return Hashing.murmur3_128().hashBytes(bytes);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // Unreadable files are treated as changed.
+            return HashCode.fromInt(0);
+        }
+    }
+
+    /**
+     * A file inside a folder thingpack: {@code <pack>/things/<namespace>/<type>/<fileName>}.
+     */
+    private record ThingFile(String packId, String namespace, String type, String fileName)
+    {
+        @Nullable
+        public static ThingFile of(Path root, Path path)
+        {
+            var relative = root.relativize(path);
+            if (relative.getNameCount() < 5 || !relative.getName(1).toString().equals("things"))
+                return null;
+
+            var fileName = relative.subpath(4, relative.getNameCount()).toString().replace('\\', '/');
+            return new ThingFile("file/" + relative.getName(0), relative.getName(2).toString(), relative.getName(3).toString(), fileName);
+        }
+
+        public ResourceLocation thingId()
+        {
+            var dot = fileName.lastIndexOf('.');
+            return new ResourceLocation(namespace, dot >= 0 ? fileName.substring(0, dot) : fileName);
+        }
+    }
+}
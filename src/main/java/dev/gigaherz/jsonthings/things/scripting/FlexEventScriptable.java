@@ -3,25 +3,50 @@ package dev.gigaherz.jsonthings.things.scripting;
 import dev.gigaherz.jsonthings.things.events.ContextValue;
 import dev.gigaherz.jsonthings.things.events.FlexEventContext;
 import dev.latvian.mods.rhino.Context;
+import dev.latvian.mods.rhino.EvaluatorException;
 import dev.latvian.mods.rhino.NativeJavaObject;
 import dev.latvian.mods.rhino.Scriptable;
 import dev.latvian.mods.rhino.ScriptableObject;
 
+import javax.annotation.Nullable;
+
+/**
+ * The context object passed to scripts. Scripts must not keep it after the call returns (in a closure, a global or a callback):
+ * the same wrapper is reused for the next event on the same thread, so a kept reference throws an error when used
+ * outside of an event, and sees the context of whatever event is running when used during another one.
+ */
 public class FlexEventScriptable extends NativeJavaObject
 {
-    private final FlexEventContext ctx;
-    private final Scriptable scope;
+    @Nullable
+    private FlexEventContext ctx;
 
-    public FlexEventScriptable(Scriptable scope, FlexEventContext ctx)
+    public FlexEventScriptable(Scriptable scope, @Nullable FlexEventContext ctx)
     {
         super(scope, ctx, FlexEventContext.class);
-        this.scope = scope;
         this.ctx = ctx;
     }
 
+    /**
+     * Points this wrapper to a different context, so that the same wrapper can be reused for multiple events.
+     */
+    public void setContext(@Nullable FlexEventContext ctx)
+    {
+        this.ctx = ctx;
+        this.javaObject = ctx;
+    }
+
+    private FlexEventContext getContext()
+    {
+        var ctx = this.ctx;
+        if (ctx == null)
+            throw new EvaluatorException("The event context is no longer valid. Scripts must not keep the context after the event call returns.");
+        return ctx;
+    }
+
     @Override
     public boolean has(String name, Scriptable start)
     {
+        var ctx = getContext();
         var val = ContextValue.get(name);
         if (ctx.has(val))
             return true;
@@ -31,6 +56,7 @@ public class FlexEventScriptable extends NativeJavaObject
     @Override
     public Object get(String name, Scriptable start)
     {
+        var ctx = getContext();
         var val = ContextValue.get(name);
         if (ctx.has(val))
         {
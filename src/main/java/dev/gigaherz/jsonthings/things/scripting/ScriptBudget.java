@@ -0,0 +1,75 @@
+package dev.gigaherz.jsonthings.things.scripting;
+
+import com.google.gson.JsonObject;
+import dev.gigaherz.jsonthings.util.parse.value.ObjValue;
+
+import java.util.Locale;
+
+/**
+ * Limits the amount of work a script can do, measured in interpreted instructions.
+ * A limit of 0 means unlimited.
+ */
+public record ScriptBudget(int instructionsPerCall, int instructionsPerTick, Policy policy, int skipTicks)
+{
+    public static final ScriptBudget UNLIMITED = new ScriptBudget(0, 0, Policy.ABORT, 20);
+
+    public boolean isLimited()
+    {
+        return instructionsPerCall > 0 || instructionsPerTick > 0;
+    }
+
+    public static ScriptBudget parse(ObjValue obj, ScriptBudget defaults)
+    {
+        var instructionsPerCall = new int[]{defaults.instructionsPerCall()};
+        var instructionsPerTick = new int[]{defaults.instructionsPerTick()};
+        var policy = new Policy[]{defaults.policy()};
+        var skipTicks = new int[]{defaults.skipTicks()};
+        obj
+                .ifKey("instructions_per_call", val -> val.intValue().min(0).handle(i -> instructionsPerCall[0] = i))
+                .ifKey("instructions_per_tick", val -> val.intValue().min(0).handle(i -> instructionsPerTick[0] = i))
+                .ifKey("policy", val -> val.string().map(Policy::byName).handle(p -> policy[0] = p))
+                .ifKey("skip_ticks", val -> val.intValue().min(1).handle(i -> skipTicks[0] = i));
+        return new ScriptBudget(instructionsPerCall[0], instructionsPerTick[0], policy[0], skipTicks[0]);
+    }
+
+    public JsonObject serialize()
+    {
+        var obj = new JsonObject();
+        obj.addProperty("instructions_per_call", instructionsPerCall);
+        obj.addProperty("instructions_per_tick", instructionsPerTick);
+        obj.addProperty("policy", policy.getSerializedName());
+        obj.addProperty("skip_ticks", skipTicks);
+        return obj;
+    }
+
+    public enum Policy
+    {
+        /**
+         * The current invocation is aborted, and the thing runs its default behaviour instead.
+         */
+        ABORT,
+        /**
+         * The invocation is aborted, and the script is not run again on this thread for 'skip_ticks' ticks.
+         */
+        SKIP,
+        /**
+         * The invocation is aborted, and the script is not run again until the next reload.
+         */
+        DISABLE;
+
+        public String getSerializedName()
+        {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Policy byName(String name)
+        {
+            for (Policy policy : values())
+            {
+                if (policy.getSerializedName().equals(name))
+                    return policy;
+            }
+            throw new IllegalStateException("Unknown script budget policy '" + name + "'. Expected one of: abort, skip, disable.");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.gigaherz.jsonthings.things.scripting;
+
+import dev.gigaherz.jsonthings.JsonThings;
+import dev.latvian.mods.rhino.Context;
+import dev.latvian.mods.rhino.ContextFactory;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Context factory used for all the thing scripts, which forwards the interpreter's instruction counts
+ * to the script currently running on the thread, so that it can enforce its {@link ScriptBudget}.
+ */
+@Mod.EventBusSubscriber(modid = JsonThings.MODID)
+public class ScriptContextFactory extends ContextFactory
+{
+    /**
+     * How many instructions are run between budget checks, when the running script has a limited budget.
+     */
+    public static final int OBSERVER_THRESHOLD = 1000;
+
+    public static final ScriptContextFactory INSTANCE = new ScriptContextFactory();
+
+    private static final ThreadLocal<ThingScript.Instance> runningInstance = new ThreadLocal<>();
+    // Shared by every thread, so that scripts running off the game threads (worldgen, background tasks, networking)
+    // still see their per-tick budgets reset and their skips expire.
+    private static final AtomicLong tickCounter = new AtomicLong();
+
+    public static Context enter()
+    {
+        return INSTANCE.enterContext();
+    }
+
+    @Nullable
+    static ThingScript.Instance setRunningInstance(@Nullable ThingScript.Instance instance)
+    {
+        var previous = runningInstance.get();
+        runningInstance.set(instance);
+        return previous;
+    }
+
+    /**
+     * The number of game ticks that have started: server ticks while a server is running, client ticks otherwise.
+     * Used to reset the per-tick budgets.
+     */
+    public static long currentTick()
+    {
+        return tickCounter.get();
+    }
+
+    @Override
+    protected void observeInstructionCount(Context cx, int instructionCount)
+    {
+        var instance = runningInstance.get();
+        if (instance != null)
+            instance.observeInstructions(instructionCount);
+    }
+
+    @SubscribeEvent
+    public static void serverTick(TickEvent.ServerTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.START)
+            tickCounter.incrementAndGet();
+    }
+
+    @SubscribeEvent
+    public static void clientTick(TickEvent.ClientTickEvent event)
+    {
+        // With an integrated server running, counting both would make ticks pass twice as fast.
+        if (event.phase == TickEvent.Phase.START && ServerLifecycleHooks.getCurrentServer() == null)
+            tickCounter.incrementAndGet();
+    }
+}
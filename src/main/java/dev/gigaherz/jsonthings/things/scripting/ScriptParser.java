@@ -1,6 +1,8 @@
 package dev.gigaherz.jsonthings.things.scripting;
 
+import dev.gigaherz.jsonthings.JsonThingsConfig;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.profiling.ProfilerFiller;
@@ -10,8 +12,10 @@ import org.apache.logging.log4j.Logger;
 import javax.annotation.Nonnull;
 import javax.script.ScriptException;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ScriptParser extends SimplePreparableReloadListener<Map<ResourceLocation, ThingScript>>
 {
@@ -43,7 +47,9 @@ public class ScriptParser extends SimplePreparableReloadListener<Map<ResourceLoc
             var id = new ResourceLocation(res.getNamespace(), cleanPath);
             try
             {
-                map.put(id, ThingScript.fromResource(pResourceManager.getResource(res)));
+                var script = ThingScript.fromResource(pResourceManager.getResource(res));
+                script.setBudget(JsonThingsConfig.getScriptBudget(id));
+                map.put(id, script);
             }
             catch (IOException | ScriptException e)
             {
@@ -57,7 +63,31 @@ public class ScriptParser extends SimplePreparableReloadListener<Map<ResourceLoc
     @Override
     protected void apply(Map<ResourceLocation, ThingScript> pObject, ResourceManager pResourceManager, ProfilerFiller pProfiler)
     {
-        scripts = pObject;
+        scripts = new ConcurrentHashMap<>(pObject);
+    }
+
+    /**
+     * Loads a single script while the game is running. If a script with the same id exists, it's updated in place,
+     * so that the things already using it switch to the new code.
+     */
+    public void reloadScript(ResourceLocation id, Resource resource) throws IOException, ScriptException
+    {
+        var script = ThingScript.fromResource(resource);
+        var existing = scripts.get(id);
+        if (existing != null)
+        {
+            existing.replaceWith(script);
+        }
+        else
+        {
+            script.setBudget(JsonThingsConfig.getScriptBudget(id));
+            scripts.put(id, script);
+        }
+    }
+
+    public Map<ResourceLocation, ThingScript> getScripts()
+    {
+        return scripts != null ? Collections.unmodifiableMap(scripts) : Map.of();
     }
 
     @Nonnull
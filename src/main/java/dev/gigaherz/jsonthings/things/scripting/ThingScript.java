@@ -3,51 +3,45 @@ package dev.gigaherz.jsonthings.things.scripting;
 import dev.gigaherz.jsonthings.things.events.FlexEventContext;
 import dev.gigaherz.jsonthings.things.events.FlexEventHandler;
 import dev.gigaherz.jsonthings.things.events.FlexEventResult;
+import dev.gigaherz.jsonthings.util.JfrEvents;
 import dev.latvian.mods.rhino.*;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import javax.annotation.WillClose;
 import javax.script.ScriptException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
-@SuppressWarnings("ClassCanBeRecord")
 public class ThingScript implements FlexEventHandler
 {
     public static final Logger LOGGER = LogManager.getLogger();
 
     public static ThingScript fromResource(@WillClose Resource resource) throws IOException, ScriptException
     {
-        Context cx = Context.enter();
-        cx.isStrictMode()
+        Context cx = ScriptContextFactory.enter();
         try
         {
             try(resource;
-                var stream = resource.getInputStream();
-                var reader = new InputStreamReader(stream))
+                var stream = resource.getInputStream())
             {
-                Scriptable scope = cx.initStandardObjects();
+                var source = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                Script script = cx.compileString(source, resource.getLocation().toString(), 0, null);
 
-                Script script = cx.compileReader(reader, resource.getLocation().toString(), 0, null);
+                var thingScript = new ThingScript(resource.getLocation(), script);
 
-                var logger = LogManager.getLogger("ThingScript/" + resource.getLocation());
+                // Evaluate once on the loading thread, so that errors are reported during loading.
+                var instance = thingScript.instantiate(cx);
+                thingScript.supportsBatching = instance.batchFunction != null;
 
-                scope.put("FlexEventResult", scope, new NativeJavaClass(scope, FlexEventResult.class));
-                scope.put("LOGGER", scope, new NativeJavaObject(scope, logger, Logger.class));
-
-                script.exec(cx, scope);
-
-                var result = scope.get("apply", scope);
-                if (result instanceof Function function)
-                {
-                    return new ThingScript(scope, function);
-                }
-                else
-                {
-                    throw new ScriptException("Error evaluating script " + resource.getLocation() + ": Function 'apply' not found or not a function.");
-                }
+                return thingScript;
             }
             catch(EcmaError e)
             {
@@ -60,28 +54,343 @@ public class ThingScript implements FlexEventHandler
         }
     }
 
-    private final Scriptable scope;
-    private final Function function;
+    private final ResourceLocation location;
+    private volatile Script script;
+    // Incremented when the script is replaced, so that each thread evaluates the new version on its next call.
+    private volatile int generation;
+    private final Logger logger;
+    private volatile boolean supportsBatching;
+    private volatile ScriptBudget budget = ScriptBudget.UNLIMITED;
+    private volatile boolean disabled;
+    private final LongAdder budgetViolations = new LongAdder();
+
+    /**
+     * Each thread gets its own evaluation of the script, so that script state is never shared
+     * between the server and client threads, and the wrapper objects can be reused without synchronization.
+     */
+    private final ThreadLocal<Instance> instances = new ThreadLocal<>();
+
+    private ThingScript(ResourceLocation location, Script script)
+    {
+        this.location = location;
+        this.script = script;
+        this.logger = LogManager.getLogger("ThingScript/" + location);
+    }
+
+    private Instance instantiate(Context cx) throws ScriptException
+    {
+        Scriptable scope = cx.initStandardObjects();
+
+        scope.put("FlexEventResult", scope, new NativeJavaClass(scope, FlexEventResult.class));
+        scope.put("LOGGER", scope, new NativeJavaObject(scope, logger, Logger.class));
+
+        script.exec(cx, scope);
+
+        var result = scope.get("apply", scope);
+        if (result instanceof Function function)
+        {
+            var batchFunction = scope.get("applyBatch", scope) instanceof Function f ? f : null;
+            return new Instance(this, generation, scope, function, batchFunction);
+        }
+        else
+        {
+            throw new ScriptException("Error evaluating script " + location + ": Function 'apply' not found or not a function.");
+        }
+    }
+
+    private Instance getInstance(Context cx)
+    {
+        var instance = instances.get();
+        if (instance == null || instance.generation != generation)
+        {
+            try
+            {
+                instance = instantiate(cx);
+            }
+            catch (ScriptException e)
+            {
+                throw new RuntimeException("Error evaluating script " + location, e);
+            }
+            instances.set(instance);
+        }
+        return instance;
+    }
 
-    public ThingScript(Scriptable scope, Function function)
+    /**
+     * Takes the code of another script loaded from the same file, used by the thingpack hot reload.
+     * The things using this script keep their reference to it, and pick up the new code on their next event.
+     */
+    public void replaceWith(ThingScript other)
     {
-        this.scope = scope;
-        this.function = function;
+        this.script = other.script;
+        this.supportsBatching = other.supportsBatching;
+        this.disabled = false;
+        this.generation++;
     }
 
+    public ResourceLocation getLocation()
+    {
+        return location;
+    }
+
+    public ScriptBudget getBudget()
+    {
+        return budget;
+    }
+
+    public void setBudget(ScriptBudget budget)
+    {
+        this.budget = budget;
+    }
+
+    public boolean isDisabled()
+    {
+        return disabled;
+    }
+
+    /**
+     * The number of times this script has exceeded its budget since it was loaded.
+     */
+    public long getBudgetViolations()
+    {
+        return budgetViolations.sum();
+    }
+
+    /**
+     * Calls the function with the budget of this script applied.
+     * Returns null if the budget was exceeded, in which case the caller should fall back to the default behaviour.
+     */
+    @Nullable
+    private Object invoke(Context cx, Instance instance, Function function, Object[] args)
+    {
+        var budget = this.budget;
+        if (!budget.isLimited())
+            return function.call(cx, instance.scope, instance.scope, args);
+
+        var previousThreshold = cx.getInstructionObserverThreshold();
+        var previousInstance = ScriptContextFactory.setRunningInstance(instance);
+        instance.beginCall();
+        cx.setInstructionObserverThreshold(ScriptContextFactory.OBSERVER_THRESHOLD);
+        try
+        {
+            return function.call(cx, instance.scope, instance.scope, args);
+        }
+        catch (BudgetExceededException e)
+        {
+            onBudgetExceeded(instance, budget, e.getMessage());
+            return null;
+        }
+        catch (WrappedException e)
+        {
+            // The limit can be hit inside a nested event, in which case the exception comes back wrapped by the java call.
+            if (!(e.getWrappedException() instanceof BudgetExceededException inner))
+                throw e;
+            onBudgetExceeded(instance, budget, inner.getMessage());
+            return null;
+        }
+        finally
+        {
+            cx.setInstructionObserverThreshold(previousThreshold);
+            ScriptContextFactory.setRunningInstance(previousInstance);
+        }
+    }
+
+    private void onBudgetExceeded(Instance instance, ScriptBudget budget, String reason)
+    {
+        budgetViolations.increment();
+        switch (budget.policy())
+        {
+            case ABORT -> LOGGER.debug("Script {} aborted: {}", location, reason);
+            case SKIP -> {
+                instance.skipUntilTick = ScriptContextFactory.currentTick() + budget.skipTicks();
+                LOGGER.warn("Script {} exceeded its budget ({}), skipping it for {} ticks.", location, reason, budget.skipTicks());
+            }
+            case DISABLE -> {
+                disabled = true;
+                LOGGER.error("Script {} exceeded its budget ({}), disabling it until the next reload.", location, reason);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Returns null if the script is disabled or over its budget, so that the thing runs its default behaviour.
+     */
+    @Nullable
     @Override
     public FlexEventResult apply(String eventName, FlexEventContext context)
     {
-        Context cx = Context.enter();
+        var event = new JfrEvents.ScriptApply();
+        event.begin();
+        Context cx = ScriptContextFactory.enter();
         try
         {
-            var wrappedContext = new FlexEventScriptable(scope, context);
-            Object result = function.call(cx, scope, scope, new Object[]{eventName, wrappedContext});
-            return (FlexEventResult) ((NativeJavaObject)result).unwrap();
+            var instance = getInstance(cx);
+            if (!instance.canRun())
+                return null;
+            var wrappedContext = instance.acquireWrapper(context);
+            try
+            {
+                Object result = invoke(cx, instance, instance.function, new Object[]{eventName, wrappedContext});
+                if (result == null)
+                    return null;
+                return (FlexEventResult) ((NativeJavaObject) result).unwrap();
+            }
+            finally
+            {
+                instance.releaseWrapper(wrappedContext);
+            }
         }
         finally
         {
             Context.exit();
+            event.eventName = eventName;
+            event.commit(location, "script");
+        }
+    }
+
+    /**
+     * Scripts opt into batching by defining an 'applyBatch(eventName, contexts)' function,
+     * which receives an array of contexts and must return an array with one result per context.
+     */
+    @Override
+    public boolean supportsBatching()
+    {
+        return supportsBatching;
+    }
+
+    @Override
+    public List<FlexEventResult> applyBatch(String eventName, List<FlexEventContext> contexts)
+    {
+        if (!supportsBatching)
+            return FlexEventHandler.super.applyBatch(eventName, contexts);
+
+        Context cx = ScriptContextFactory.enter();
+        try
+        {
+            var instance = getInstance(cx);
+            if (!instance.canRun())
+                return Collections.nCopies(contexts.size(), null);
+            var wrappedContexts = new Object[contexts.size()];
+            for (int i = 0; i < wrappedContexts.length; i++)
+            {
+                wrappedContexts[i] = new FlexEventScriptable(instance.scope, contexts.get(i));
+            }
+            Object result = invoke(cx, instance, instance.batchFunction, new Object[]{eventName, cx.newArray(instance.scope, wrappedContexts)});
+            if (result == null)
+                return Collections.nCopies(contexts.size(), null);
+            if (result instanceof Wrapper wrapper)
+                result = wrapper.unwrap();
+            if (!(result instanceof List<?> list))
+                throw new IllegalStateException("Script " + location + ": applyBatch must return an array of results.");
+            var results = new ArrayList<FlexEventResult>(list.size());
+            for (Object o : list)
+            {
+                results.add((FlexEventResult) (o instanceof Wrapper w ? w.unwrap() : o));
+            }
+            return results;
+        }
+        finally
+        {
+            Context.exit();
+        }
+    }
+
+    static class Instance
+    {
+        private final ThingScript owner;
+        private final int generation;
+        private final Scriptable scope;
+        private final Function function;
+        @Nullable
+        private final Function batchFunction;
+        private final FlexEventScriptable wrapper;
+        private boolean wrapperInUse;
+
+        // Budget accounting. Instances are per-thread, so these don't need synchronization.
+        private long callInstructions;
+        private long tickInstructions;
+        private long tickStamp = -1;
+        private long skipUntilTick;
+
+        private Instance(ThingScript owner, int generation, Scriptable scope, Function function, @Nullable Function batchFunction)
+        {
+            this.owner = owner;
+            this.generation = generation;
+            this.scope = scope;
+            this.function = function;
+            this.batchFunction = batchFunction;
+            this.wrapper = new FlexEventScriptable(scope, null);
+        }
+
+        private FlexEventScriptable acquireWrapper(FlexEventContext context)
+        {
+            // Events can be nested (a script can cause another event on the same thread), those get their own wrapper.
+            if (wrapperInUse)
+                return new FlexEventScriptable(scope, context);
+            wrapperInUse = true;
+            wrapper.setContext(context);
+            return wrapper;
+        }
+
+        private boolean canRun()
+        {
+            if (owner.disabled)
+                return false;
+            var currentTick = ScriptContextFactory.currentTick();
+            if (currentTick < skipUntilTick)
+                return false;
+            var perTick = owner.budget.instructionsPerTick();
+            return perTick <= 0 || tickStamp != currentTick || tickInstructions < perTick;
+        }
+
+        private void beginCall()
+        {
+            callInstructions = 0;
+            var currentTick = ScriptContextFactory.currentTick();
+            if (tickStamp != currentTick)
+            {
+                tickStamp = currentTick;
+                tickInstructions = 0;
+            }
+        }
+
+        void observeInstructions(int count)
+        {
+            callInstructions += count;
+            tickInstructions += count;
+
+            var budget = owner.budget;
+            if (budget.instructionsPerCall() > 0 && callInstructions > budget.instructionsPerCall())
+                throw new BudgetExceededException(callInstructions + " instructions in one call, limit is " + budget.instructionsPerCall());
+            if (budget.instructionsPerTick() > 0 && tickInstructions > budget.instructionsPerTick())
+                throw new BudgetExceededException(tickInstructions + " instructions in one tick, limit is " + budget.instructionsPerTick());
+        }
+
+        /**
+         * Detaches the context from the reused wrapper, so that a script that kept it gets a clear error
+         * instead of reading a context that is no longer valid. See {@link FlexEventScriptable}.
+         */
+        private void releaseWrapper(FlexEventScriptable wrapped)
+        {
+            if (wrapped == wrapper)
+            {
+                wrapper.setContext(null);
+                wrapperInUse = false;
+            }
+        }
+    }
+
+    /**
+     * Thrown from the instruction observer to unwind the interpreter. This is an Error rather than a RuntimeException
+     * because Rhino still runs the script's finally blocks for the latter, which would let the script keep running
+     * after it was aborted. Errors are passed straight through, without running any script code.
+     */
+    private static class BudgetExceededException extends Error
+    {
+        private BudgetExceededException(String message)
+        {
+            super(message);
         }
     }
 }
@@ -56,4 +56,10 @@ public class BasicShape implements IShapeProvider
     {
         return this;
     }
+
+    @Override
+    public boolean isStateIndependent()
+    {
+        return true;
+    }
 }
@@ -14,11 +14,13 @@ import net.minecraft.world.phys.shapes.BooleanOp;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class CombinedShape implements IShapeProvider
 {
@@ -65,15 +67,129 @@ public class CombinedShape implements IShapeProvider
     @Override
     public Optional<VoxelShape> getShape(BlockState state, Direction facing)
     {
-        return boxes.stream()
-                .map(shape -> shape.getShape(state, facing))
-                .reduce(Optional.empty(), (a, b) -> a.map(aa -> b.map(bb -> Shapes.joinUnoptimized(aa, bb, operator))).orElse(b))
-                .map(VoxelShape::optimize);
+        VoxelShape result = null;
+        for (IShapeProvider box : boxes)
+        {
+            var shape = box.getShape(state, facing);
+            if (shape.isPresent())
+                result = result != null ? Shapes.joinUnoptimized(result, shape.get(), operator) : shape.get();
+        }
+        return result != null ? Optional.of(result.optimize()) : Optional.empty();
     }
 
+    /**
+     * Nested unions are flattened into a single one, so the result is only optimized once instead of once per level.
+     * The parts that don't depend on the block state are combined ahead of time, once for each direction.
+     * Other operators keep their parts in order, and are only precomputed if none of them depends on the block state.
+     */
     @Override
     public IShapeProvider bake(Function<String, Property<?>> propertyLookup)
     {
-        return new CombinedShape(operator, boxes.stream().map(s -> s.bake(propertyLookup)).collect(Collectors.toList()));
+        var bakedBoxes = new ArrayList<IShapeProvider>(boxes.size());
+        boolean allConstant = true;
+        for (IShapeProvider box : boxes)
+        {
+            var baked = box.bake(propertyLookup);
+            bakedBoxes.add(baked);
+            allConstant &= baked.isStateIndependent();
+        }
+
+        // The order of the parts matters for other operators, so nothing can be precomputed unless all of them can.
+        if (operator != BooleanOp.OR && !allConstant)
+            return new Baked(null, bakedBoxes.toArray(IShapeProvider[]::new));
+
+        var constantParts = new ArrayList<IShapeProvider>();
+        var dynamicParts = new ArrayList<IShapeProvider>();
+        for (IShapeProvider baked : bakedBoxes)
+        {
+            if (operator == BooleanOp.OR && baked instanceof Baked union && union.getOperator() == BooleanOp.OR)
+            {
+                if (union.constantShapes != null)
+                    constantParts.add(union.constantPart());
+                Collections.addAll(dynamicParts, union.dynamicParts);
+            }
+            else if (baked.isStateIndependent())
+            {
+                constantParts.add(baked);
+            }
+            else
+            {
+                dynamicParts.add(baked);
+            }
+        }
+
+        VoxelShape[] constantShapes = null;
+        if (!constantParts.isEmpty())
+        {
+            var folded = new CombinedShape(operator, constantParts);
+            constantShapes = new VoxelShape[Direction.values().length];
+            for (Direction direction : Direction.values())
+            {
+                constantShapes[direction.ordinal()] = folded.getShape(null, direction).orElse(null);
+            }
+        }
+        return new Baked(constantShapes, dynamicParts.toArray(IShapeProvider[]::new));
+    }
+
+    public class Baked implements IShapeProvider
+    {
+        // Indexed by direction, null entries are empty.
+        @Nullable
+        private final VoxelShape[] constantShapes;
+        private final IShapeProvider[] dynamicParts;
+
+        private Baked(@Nullable VoxelShape[] constantShapes, IShapeProvider[] dynamicParts)
+        {
+            this.constantShapes = constantShapes;
+            this.dynamicParts = dynamicParts;
+        }
+
+        private BooleanOp getOperator()
+        {
+            return operator;
+        }
+
+        private Baked constantPart()
+        {
+            return new Baked(constantShapes, new IShapeProvider[0]);
+        }
+
+        @Override
+        public Optional<VoxelShape> getShape(BlockState state, Direction facing)
+        {
+            VoxelShape result = constantShapes != null ? constantShapes[facing.ordinal()] : null;
+            boolean joined = false;
+            for (IShapeProvider part : dynamicParts)
+            {
+                var shape = part.getShape(state, facing);
+                if (shape.isPresent())
+                {
+                    if (result != null)
+                    {
+                        result = Shapes.joinUnoptimized(result, shape.get(), operator);
+                        joined = true;
+                    }
+                    else
+                    {
+                        result = shape.get();
+                    }
+                }
+            }
+            if (result == null)
+                return Optional.empty();
+            return Optional.of(joined ? result.optimize() : result);
+        }
+
+        @Override
+        public IShapeProvider bake(Function<String, Property<?>> propertyLookup)
+        {
+            return CombinedShape.this.bake(propertyLookup);
+        }
+
+        @Override
+        public boolean isStateIndependent()
+        {
+            return dynamicParts.length == 0;
+        }
     }
 }
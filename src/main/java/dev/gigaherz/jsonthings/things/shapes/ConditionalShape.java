@@ -8,6 +8,9 @@ import com.mojang.serialization.codecs.RecordCodecBuilder;
 import dev.gigaherz.jsonthings.util.CodecExtras;
 import net.minecraft.core.Direction;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BooleanProperty;
+import net.minecraft.world.level.block.state.properties.EnumProperty;
+import net.minecraft.world.level.block.state.properties.IntegerProperty;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
@@ -48,10 +51,9 @@ public class ConditionalShape implements IShapeProvider
             boolean allMatch = true;
             for (Pair<String, Set<String>> p : condition)
             {
-                Optional<Property<?>> prop = state.getProperties().stream().filter(pr -> pr.getName().equals(p.getFirst())).findFirst();
-                if (!prop.isPresent())
+                Property<?> property = state.getBlock().getStateDefinition().getProperty(p.getFirst());
+                if (property == null)
                     throw new IllegalStateException("Property not found " + p.getFirst());
-                Property<?> property = prop.get();
                 if (!p.getSecond().contains(getPropertyValueByName(state, property)))
                 {
                     allMatch = false;
@@ -73,13 +75,13 @@ public class ConditionalShape implements IShapeProvider
 
     public IShapeProvider bake(Function<String, Property<?>> propertyLookup)
     {
-        List<List<Pair<Property<?>, Set<Comparable<?>>>>> baked = conditions.stream().map(
-                l -> l.stream().map(p -> parsePropertyValueSet(propertyLookup, p)).collect(Collectors.toList())
-        ).collect(Collectors.toList());
+        ValueTest[][] baked = conditions.stream().map(
+                l -> l.stream().map(p -> parsePropertyValueSet(propertyLookup, p)).toArray(ValueTest[]::new)
+        ).toArray(ValueTest[][]::new);
         return new Baked(baked, shape.bake(propertyLookup));
     }
 
-    private Pair<Property<?>, Set<Comparable<?>>> parsePropertyValueSet(Function<String, Property<?>> propertyLookup, Pair<String, Set<String>> condition)
+    private ValueTest parsePropertyValueSet(Function<String, Property<?>> propertyLookup, Pair<String, Set<String>> condition)
     {
         String pName = condition.getFirst();
         Property<?> prop = propertyLookup.apply(pName);
@@ -88,7 +90,7 @@ public class ConditionalShape implements IShapeProvider
         Set<Comparable<?>> values = condition.getSecond().stream().map(
                 s -> parseValueFromProperty(prop, s)
         ).collect(Collectors.toSet());
-        return Pair.of(prop, values);
+        return ValueTest.compile(prop, values);
     }
 
     private <T extends Comparable<T>> T parseValueFromProperty(Property<T> prop, String s)
@@ -98,27 +100,24 @@ public class ConditionalShape implements IShapeProvider
 
     public class Baked implements IShapeProvider
     {
-
-        public final List<List<Pair<Property<?>, Set<Comparable<?>>>>> conditions = Lists.newArrayList();
+        private final ValueTest[][] conditions;
         public final IShapeProvider shape;
 
-        private Baked(List<List<Pair<Property<?>, Set<Comparable<?>>>>> conditions, IShapeProvider shape)
+        private Baked(ValueTest[][] conditions, IShapeProvider shape)
         {
-            this.conditions.addAll(conditions);
+            this.conditions = conditions;
             this.shape = shape;
         }
 
         @Override
         public Optional<VoxelShape> getShape(BlockState state, Direction facing)
         {
-            for (List<Pair<Property<?>, Set<Comparable<?>>>> condition : conditions)
+            for (ValueTest[] condition : conditions)
             {
                 boolean allMatch = true;
-                for (Pair<Property<?>, Set<Comparable<?>>> p : condition)
+                for (ValueTest test : condition)
                 {
-                    Property<?> property = p.getFirst();
-                    Set<Comparable<?>> set = p.getSecond();
-                    if (!set.contains(state.getValue(property)))
+                    if (!test.test(state))
                     {
                         allMatch = false;
                         break;
@@ -138,4 +137,89 @@ public class ConditionalShape implements IShapeProvider
             return ConditionalShape.this.bake(propertyLookup);
         }
     }
+
+    /**
+     * A property test compiled into a table of accepted values, indexed by the ordinal of the value within the property.
+     * Boolean, integer and enum properties are evaluated without hashing or allocation,
+     * other property types fall back to a set lookup.
+     */
+    private static final class ValueTest
+    {
+        private static final int KIND_BOOLEAN = 0;
+        private static final int KIND_INTEGER = 1;
+        private static final int KIND_ENUM = 2;
+        private static final int KIND_OTHER = 3;
+
+        private final Property<?> property;
+        private final int kind;
+        private final int offset;
+        private final boolean[] accepted;
+        private final Set<Comparable<?>> acceptedValues;
+
+        private ValueTest(Property<?> property, int kind, int offset, boolean[] accepted, Set<Comparable<?>> acceptedValues)
+        {
+            this.property = property;
+            this.kind = kind;
+            this.offset = offset;
+            this.accepted = accepted;
+            this.acceptedValues = acceptedValues;
+        }
+
+        public static ValueTest compile(Property<?> property, Set<Comparable<?>> values)
+        {
+            if (property instanceof BooleanProperty)
+            {
+                boolean[] accepted = new boolean[2];
+                for (Comparable<?> value : values)
+                {
+                    accepted[((Boolean) value) ? 1 : 0] = true;
+                }
+                return new ValueTest(property, KIND_BOOLEAN, 0, accepted, values);
+            }
+            if (property instanceof IntegerProperty)
+            {
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (Comparable<?> value : property.getPossibleValues())
+                {
+                    int i = (Integer) value;
+                    min = Math.min(min, i);
+                    max = Math.max(max, i);
+                }
+                boolean[] accepted = new boolean[max - min + 1];
+                for (Comparable<?> value : values)
+                {
+                    accepted[(Integer) value - min] = true;
+                }
+                return new ValueTest(property, KIND_INTEGER, min, accepted, values);
+            }
+            if (property instanceof EnumProperty<?> enumProperty)
+            {
+                boolean[] accepted = new boolean[enumProperty.getValueClass().getEnumConstants().length];
+                for (Comparable<?> value : values)
+                {
+                    accepted[((Enum<?>) value).ordinal()] = true;
+                }
+                return new ValueTest(property, KIND_ENUM, 0, accepted, values);
+            }
+            return new ValueTest(property, KIND_OTHER, 0, new boolean[0], values);
+        }
+
+        public boolean test(BlockState state)
+        {
+            Comparable<?> value = state.getValue(property);
+            int index;
+            switch (kind)
+            {
+                case KIND_BOOLEAN -> index = ((Boolean) value) ? 1 : 0;
+                case KIND_INTEGER -> index = (Integer) value - offset;
+                case KIND_ENUM -> index = ((Enum<?>) value).ordinal();
+                default ->
+                {
+                    return acceptedValues.contains(value);
+                }
+            }
+            return index >= 0 && index < accepted.length && accepted[index];
+        }
+    }
 }
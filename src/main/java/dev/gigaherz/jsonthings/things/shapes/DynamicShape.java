@@ -4,23 +4,34 @@ import com.google.gson.JsonElement;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
 import dev.gigaherz.jsonthings.util.CodecExtras;
+import dev.gigaherz.jsonthings.util.JfrEvents;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.Util;
 import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.phys.shapes.BooleanOp;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
-import java.util.Collections;
-import java.util.IdentityHashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 public class DynamicShape
 {
+    private static final Logger LOGGER = LogManager.getLogger();
+
     private static final Codec<IShapeProvider> SHAPE_CODEC = CodecExtras.makeChoiceCodec(
             CodecExtras.toSubclass(ConditionalShape.CODEC, ConditionalShape.class),
             CodecExtras.toSubclass(CombinedShape.CODEC, CombinedShape.class),
@@ -44,31 +55,297 @@ public class DynamicShape
         return SHAPE_CODEC;
     }
 
-    private final Map<BlockState, VoxelShape> shapeCache = new IdentityHashMap<>();
-    private final IShapeProvider shape;
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder warmedStates = new LongAdder();
+    private static final LongAdder computedStates = new LongAdder();
+    private static final LongAdder bakeTime = new LongAdder();
+    private static final Queue<Runnable> pendingWarmUps = new ConcurrentLinkedQueue<>();
+    // Hits happen on the collision and raytrace paths, so they are only counted while someone is looking at the numbers.
+    private static volatile boolean countLookups;
+
+    /**
+     * Turns the counting of cache hits and misses on or off. Evictions, warm-ups and bake times are always counted,
+     * since they only happen when a shape is computed.
+     */
+    public static void setLookupCounting(boolean enabled)
+    {
+        countLookups = enabled;
+    }
+
+    public static boolean isLookupCounting()
+    {
+        return countLookups;
+    }
+
+    /**
+     * Totals across every shape, for the shapes command.
+     */
+    public record Metrics(long hits, long misses, long evictions, long warmedStates, long computedStates, long bakeNanos)
+    {
+        public double hitRate()
+        {
+            var total = hits + misses;
+            return total > 0 ? (double) hits / total : 0;
+        }
+
+        public double meanBakeNanos()
+        {
+            return computedStates > 0 ? (double) bakeNanos / computedStates : 0;
+        }
+    }
+
+    public static Metrics getMetrics()
+    {
+        return new Metrics(cacheHits.sum(), cacheMisses.sum(), evictions.sum(), warmedStates.sum(), computedStates.sum(), bakeTime.sum());
+    }
+
+    // The position of each state in StateDefinition#getPossibleStates, computed once per block and shared by all its baked shapes.
+    private static final Map<StateDefinition<Block, BlockState>, Reference2IntMap<BlockState>> stateIndices = new ConcurrentHashMap<>();
+
+    // BlockState does not override equals/hashCode, so this behaves as an identity map.
+    // Lookups don't lock, and shapes are computed outside the map, so a slow shape never blocks other states.
+    private final Map<BlockState, VoxelShape> shapeCache = new ConcurrentHashMap<>();
+    // Indexed by state index, and only ever replaced as a whole when the shape is reloaded.
+    @Nullable
+    private volatile VoxelShape[] bakedShapes;
+    @Nullable
+    private final StateDefinition<Block, BlockState> bakedFor;
+    @Nullable
+    private final Reference2IntMap<BlockState> bakedIndices;
+    private volatile IShapeProvider shape;
     @Nullable
     private final Property<Direction> facing;
+    // Baked instances created from this one, so that replacing the shape also updates them. Only kept when hot reload is enabled.
+    private final Queue<DynamicShape> bakedCopies = new ConcurrentLinkedQueue<>();
 
     public DynamicShape(IShapeProvider shape, @Nullable Property<Direction> facing)
+    {
+        this(shape, facing, null);
+    }
+
+    private DynamicShape(IShapeProvider shape, @Nullable Property<Direction> facing, @Nullable StateDefinition<Block, BlockState> bakedFor)
     {
         this.shape = shape;
         this.facing = facing;
+        this.bakedFor = bakedFor;
+        this.bakedIndices = bakedFor != null ? getStateIndices(bakedFor) : null;
+        if (bakedFor != null)
+            this.bakedShapes = computeAll(bakedFor);
+    }
+
+    private static Reference2IntMap<BlockState> getStateIndices(StateDefinition<Block, BlockState> stateDefinition)
+    {
+        return stateIndices.computeIfAbsent(stateDefinition, def -> {
+            var states = def.getPossibleStates();
+            var indices = new Reference2IntOpenHashMap<BlockState>(states.size());
+            indices.defaultReturnValue(-1);
+            for (int i = 0; i < states.size(); i++)
+            {
+                indices.put(states.get(i), i);
+            }
+            return indices;
+        });
+    }
+
+    private int bakedIndex(BlockState state)
+    {
+        return bakedIndices != null ? bakedIndices.getInt(state) : -1;
     }
 
     public VoxelShape getShape(BlockState blockstate)
     {
-        return shapeCache.computeIfAbsent(blockstate, state -> {
-            Direction d = facing != null ? state.getValue(facing) : Direction.NORTH;
-            return shape.getShape(state, d).orElseGet(Shapes::block);
+        var bakedShapes = this.bakedShapes;
+        if (bakedShapes != null)
+        {
+            int index = bakedIndex(blockstate);
+            if (index >= 0)
+                return bakedShapes[index];
+        }
+        var cached = shapeCache.get(blockstate);
+        if (cached != null)
+        {
+            if (countLookups)
+                cacheHits.increment();
+            return cached;
+        }
+        if (countLookups)
+            cacheMisses.increment();
+        return cacheShape(blockstate, computeMissingShape(blockstate));
+    }
+
+    private VoxelShape cacheShape(BlockState state, VoxelShape shape)
+    {
+        // Blocks with huge state spaces would otherwise keep a shape for every state ever seen.
+        // The evicted entry is whichever the map iterates first, which is as good as random for block states:
+        // cheap, but a state that is queried all the time can be evicted as easily as one queried once.
+        var limit = JsonThingsConfig.shapeCacheLimit;
+        if (limit > 0 && shapeCache.size() >= limit)
+        {
+            var it = shapeCache.keySet().iterator();
+            if (it.hasNext())
+            {
+                shapeCache.remove(it.next());
+                evictions.increment();
+            }
+        }
+        // If another thread computed the same state meanwhile, both results are equal, keep the first.
+        var existing = shapeCache.putIfAbsent(state, shape);
+        return existing != null ? existing : shape;
+    }
+
+    private VoxelShape computeShape(BlockState state)
+    {
+        computedStates.increment();
+        Direction d = facing != null ? state.getValue(facing) : Direction.NORTH;
+        return ShapeInterner.intern(shape.getShape(state, d).orElseGet(Shapes::block));
+    }
+
+    private VoxelShape computeMissingShape(BlockState state)
+    {
+        var event = new JfrEvents.ShapeCacheMiss();
+        event.begin();
+        var start = System.nanoTime();
+        var result = computeShape(state);
+        bakeTime.add(System.nanoTime() - start);
+        if (event.shouldCommit())
+        {
+            event.blockState = state.toString();
+            event.commit(state.getBlock().getRegistryName(), "block");
+        }
+        return result;
+    }
+
+    /**
+     * Computes the shape for every state of the block up front.
+     * The baked table is only ever replaced as a whole, never modified, so lookups need no synchronization.
+     * Shapes can be shared between blocks, so this returns a new instance instead of modifying this one.
+     * Blocks with more states than the shape cache limit are not baked, and this instance is returned as is.
+     */
+    public DynamicShape bake(StateDefinition<Block, BlockState> stateDefinition)
+    {
+        var limit = JsonThingsConfig.shapeCacheLimit;
+        if (limit > 0 && stateDefinition.getPossibleStates().size() > limit)
+            return this;
+
+        var baked = new DynamicShape(shape, facing, stateDefinition);
+        if (JsonThingsConfig.hotReload)
+            bakedCopies.add(baked);
+        return baked;
+    }
+
+    private VoxelShape[] computeAll(StateDefinition<Block, BlockState> stateDefinition)
+    {
+        var start = System.nanoTime();
+        var states = stateDefinition.getPossibleStates();
+        var shapes = new VoxelShape[states.size()];
+        for (int i = 0; i < shapes.length; i++)
+        {
+            shapes[i] = computeShape(states.get(i));
+        }
+        bakeTime.add(System.nanoTime() - start);
+        return shapes;
+    }
+
+    public boolean isBaked()
+    {
+        return bakedFor != null;
+    }
+
+    /**
+     * Queues the states most likely to be queried first to be computed in the background once the blocks are registered:
+     * the default state, and the default state turned to each value of the shape_rotation property.
+     */
+    public void scheduleWarmUp(BlockState defaultState)
+    {
+        if (isBaked())
+            return;
+        pendingWarmUps.add(() -> {
+            warmUp(defaultState);
+            if (facing != null && defaultState.hasProperty(facing))
+            {
+                for (Direction direction : facing.getPossibleValues())
+                {
+                    warmUp(defaultState.setValue(facing, direction));
+                }
+            }
         });
     }
 
+    private void warmUp(BlockState state)
+    {
+        if (shapeCache.containsKey(state))
+            return;
+        var start = System.nanoTime();
+        var result = computeShape(state);
+        bakeTime.add(System.nanoTime() - start);
+        cacheShape(state, result);
+        warmedStates.increment();
+    }
+
+    /**
+     * Computes the queued warm-up states on the background executor.
+     */
+    public static void startWarmUp()
+    {
+        if (pendingWarmUps.isEmpty())
+            return;
+        Util.backgroundExecutor().execute(() -> {
+            Runnable warmUp;
+            while ((warmUp = pendingWarmUps.poll()) != null)
+            {
+                try
+                {
+                    warmUp.run();
+                }
+                catch (RuntimeException e)
+                {
+                    // Any error will be reported when the state is queried for real.
+                    LOGGER.debug("Error warming up a block shape", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces the shape definition, used when a thingpack is reloaded while the game is running.
+     * Cached and baked shapes are recomputed, including those of the instances baked from this one.
+     * The blocks whose shapes may have changed are added to 'affectedBlocks', so their state caches can be rebuilt.
+     */
+    public void replaceShape(IShapeProvider newShape, Set<Block> affectedBlocks)
+    {
+        this.shape = newShape;
+        for (BlockState state : shapeCache.keySet())
+        {
+            affectedBlocks.add(state.getBlock());
+        }
+        shapeCache.clear();
+        if (bakedFor != null)
+        {
+            bakedShapes = computeAll(bakedFor);
+            affectedBlocks.add(bakedFor.getOwner());
+        }
+        for (DynamicShape copy : bakedCopies)
+        {
+            copy.replaceShape(newShape, affectedBlocks);
+        }
+    }
+
     public static DynamicShape fromJson(JsonElement data, @Nullable Property<Direction> facingProperty, Function<String, Property<?>> properties)
+    {
+        var event = new JfrEvents.ShapeFromJson();
+        event.begin();
+        IShapeProvider shape = providerFromJson(data, properties);
+        event.commit(JfrEvents.getCurrentResource(), "shape");
+        return new DynamicShape(shape, facingProperty);
+    }
+
+    public static IShapeProvider providerFromJson(JsonElement data, Function<String, Property<?>> properties)
     {
         IShapeProvider shape = SHAPE_CODEC.decode(JsonOps.INSTANCE, data).getOrThrow(false, str -> {
         }).getFirst();
-        shape = shape.bake(properties);
-        return new DynamicShape(shape, facingProperty);
+        return shape.bake(properties);
     }
 
     @SuppressWarnings("SuspiciousNameCombination")
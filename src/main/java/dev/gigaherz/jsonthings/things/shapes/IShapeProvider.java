@@ -13,4 +13,13 @@ public interface IShapeProvider
     Optional<VoxelShape> getShape(BlockState state, Direction facing);
 
     IShapeProvider bake(Function<String, Property<?>> propertyLookup);
+
+    /**
+     * True if the shape only depends on the facing, so it can be computed once per direction when baking.
+     * The state passed to {@link #getShape} is not used by such shapes, and may be null.
+     */
+    default boolean isStateIndependent()
+    {
+        return false;
+    }
 }
@@ -0,0 +1,48 @@
+package dev.gigaherz.jsonthings.things.shapes;
+
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global pool of computed shapes, so that equal shapes computed by different blocks or states share one instance.
+ * Shapes are compared by their list of boxes.
+ */
+public class ShapeInterner
+{
+    private static final Map<List<AABB>, VoxelShape> POOL = new ConcurrentHashMap<>();
+    private static final AtomicInteger deduplicated = new AtomicInteger();
+
+    static
+    {
+        // Vanilla checks for these two by identity in a few places (face occlusion, full block tests), so computed shapes should resolve to them.
+        POOL.put(Shapes.block().toAabbs(), Shapes.block());
+        POOL.put(Shapes.empty().toAabbs(), Shapes.empty());
+    }
+
+    public static VoxelShape intern(VoxelShape shape)
+    {
+        VoxelShape existing = POOL.putIfAbsent(shape.toAabbs(), shape);
+        if (existing != null && existing != shape)
+        {
+            deduplicated.incrementAndGet();
+            return existing;
+        }
+        return shape;
+    }
+
+    public static int getUniqueCount()
+    {
+        return POOL.size();
+    }
+
+    public static int getDeduplicatedCount()
+    {
+        return deduplicated.get();
+    }
+}
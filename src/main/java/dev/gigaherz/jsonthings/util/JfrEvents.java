@@ -0,0 +1,108 @@
+package dev.gigaherz.jsonthings.util;
+
+import jdk.jfr.*;
+import net.minecraft.resources.ResourceLocation;
+
+import javax.annotation.Nullable;
+
+/**
+ * Flight Recorder events for the expensive parts of thingpack loading and script dispatch.
+ * Recording them only costs anything while a recording with these events enabled is running.
+ * Each event carries the resource being processed and its thing type; the duration is recorded by JFR itself.
+ */
+public class JfrEvents
+{
+    private static final ThreadLocal<ResourceLocation> currentResource = new ThreadLocal<>();
+
+    /**
+     * The thing currently being parsed or built on this thread, used by the events that don't know which thing they belong to.
+     */
+    @Nullable
+    public static ResourceLocation getCurrentResource()
+    {
+        return currentResource.get();
+    }
+
+    @Nullable
+    public static ResourceLocation setCurrentResource(@Nullable ResourceLocation resource)
+    {
+        var previous = currentResource.get();
+        currentResource.set(resource);
+        return previous;
+    }
+
+    @Category({"JsonThings", "Loading"})
+    @StackTrace(false)
+    public static abstract class ThingEvent extends Event
+    {
+        @Label("Resource")
+        public String resource;
+
+        @Label("Thing Type")
+        public String thingType;
+
+        public void commit(@Nullable Object resource, String thingType)
+        {
+            if (shouldCommit())
+            {
+                this.resource = resource != null ? resource.toString() : "";
+                this.thingType = thingType;
+                commit();
+            }
+        }
+    }
+
+    @Name("jsonthings.PackOpen")
+    @Label("Thingpack Open")
+    public static class PackOpen extends ThingEvent
+    {
+    }
+
+    @Name("jsonthings.ParserApply")
+    @Label("Parser Apply")
+    @Description("Parsing of all the files of one thing type.")
+    public static class ParserApply extends ThingEvent
+    {
+        @Label("File Count")
+        public int fileCount;
+    }
+
+    @Name("jsonthings.ProcessThing")
+    @Label("Process Thing")
+    @Description("Parsing of a single thing file into its builder.")
+    public static class ProcessThing extends ThingEvent
+    {
+    }
+
+    @Name("jsonthings.BuildThing")
+    @Label("Build Thing")
+    @Description("Construction of a thing from its builder.")
+    public static class BuildThing extends ThingEvent
+    {
+    }
+
+    @Name("jsonthings.ShapeFromJson")
+    @Label("Shape From Json")
+    public static class ShapeFromJson extends ThingEvent
+    {
+    }
+
+    @Name("jsonthings.ScriptApply")
+    @Label("Script Apply")
+    @Category({"JsonThings", "Scripts"})
+    public static class ScriptApply extends ThingEvent
+    {
+        @Label("Event Name")
+        public String eventName;
+    }
+
+    @Name("jsonthings.ShapeCacheMiss")
+    @Label("Shape Cache Miss")
+    @Category({"JsonThings", "Shapes"})
+    @Description("A block shape computed on first use.")
+    public static class ShapeCacheMiss extends ThingEvent
+    {
+        @Label("Block State")
+        public String blockState;
+    }
+}
@@ -0,0 +1,347 @@
+package dev.gigaherz.jsonthings.util;
+
+import com.google.common.collect.Sets;
+import dev.gigaherz.jsonthings.JsonThingsConfig;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.AbstractPackResources;
+import net.minecraft.server.packs.FilePackResources;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.ResourcePackFileNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A zipped pack read from a memory-mapped copy of the archive. The central directory is read once into an index,
+ * so listing resources is a range lookup instead of a scan of every entry, and opening a resource doesn't seek through the file.
+ * Stored entries are read straight from the mapping, deflated entries are inflated in one go into a buffer of their exact size.
+ * Archives this can't handle (zip64, encrypted or over 2GB) are opened as a regular {@link FilePackResources} instead.
+ * With hot reload enabled the archive is read into memory instead of mapped, so the file is never kept locked.
+ */
+public class MappedZipPackResources extends AbstractPackResources
+{
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // The pack is opened several times (once to read the metadata, then once per reload), so the index is kept while the file is unchanged.
+    private static final Map<File, Archive> archiveCache = new ConcurrentHashMap<>();
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int END_RECORD_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 1;
+
+    public static PackResources open(File file)
+    {
+        try
+        {
+            return new MappedZipPackResources(file, getArchive(file));
+        }
+        catch (IOException e)
+        {
+            LOGGER.debug("Could not index {}, reading it as a regular zip: {}", file, e.getMessage());
+            return new FilePackResources(file);
+        }
+    }
+
+    private static Archive getArchive(File file) throws IOException
+    {
+        var key = file.getAbsoluteFile();
+        var archive = archiveCache.get(key);
+        if (archive == null || !archive.matches(file))
+        {
+            archiveCache.remove(key);
+            archive = Archive.read(file);
+            archiveCache.put(key, archive);
+        }
+        return archive;
+    }
+
+    /**
+     * Forgets the archives of files that were deleted or changed since they were read, so their mappings can be released.
+     * Called whenever the thingpacks folder is scanned for packs.
+     */
+    public static void pruneCache()
+    {
+        archiveCache.entrySet().removeIf(entry -> !entry.getValue().matches(entry.getKey()));
+    }
+
+    private final Archive archive;
+
+    private MappedZipPackResources(File file, Archive archive)
+    {
+        super(file);
+        this.archive = archive;
+    }
+
+    @Override
+    protected InputStream getResource(String path) throws IOException
+    {
+        var entry = archive.entries.get(path);
+        if (entry == null)
+            throw new ResourcePackFileNotFoundException(this.file, path);
+        return archive.open(entry);
+    }
+
+    @Override
+    protected boolean hasResource(String path)
+    {
+        return archive.entries.containsKey(path);
+    }
+
+    @Override
+    public Collection<ResourceLocation> getResources(PackType type, String namespace, String path, int maxDepth, Predicate<String> filter)
+    {
+        // Same rules as FilePackResources, but only looking at the entries under the requested folder.
+        var namespacePrefix = type.getDirectory() + "/" + namespace + "/";
+        var folderPrefix = namespacePrefix + path + "/";
+        var list = new ArrayList<ResourceLocation>();
+        for (String name : archive.entries.subMap(folderPrefix, folderPrefix + Character.MAX_VALUE).keySet())
+        {
+            if (name.endsWith(".mcmeta"))
+                continue;
+            var relative = name.substring(namespacePrefix.length());
+            var parts = relative.split("/");
+            if (parts.length >= maxDepth + 1 && filter.test(parts[parts.length - 1]))
+                list.add(new ResourceLocation(namespace, relative));
+        }
+        return list;
+    }
+
+    @Override
+    public Set<String> getNamespaces(PackType type)
+    {
+        var namespaces = Sets.<String>newHashSet();
+        for (String namespace : archive.namespaces.getOrDefault(type.getDirectory(), Set.of()))
+        {
+            if (namespace.equals(namespace.toLowerCase(Locale.ROOT)))
+                namespaces.add(namespace);
+            else
+                this.logWarning(namespace);
+        }
+        return namespaces;
+    }
+
+    @Override
+    public void close()
+    {
+        // The mapping is shared with later opens of the same file, and is released when it's no longer referenced.
+    }
+
+    private record Entry(int headerOffset, int method, int compressedSize, int size)
+    {
+    }
+
+    private static class Archive
+    {
+        private final ByteBuffer buffer;
+        private final long lastModified;
+        private final long length;
+        // Files only, sorted by name so that listing a folder is a range lookup.
+        private final NavigableMap<String, Entry> entries = new TreeMap<>();
+        private final Map<String, Set<String>> namespaces = new HashMap<>();
+
+        private Archive(ByteBuffer buffer, long lastModified, long length)
+        {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private boolean matches(File file)
+        {
+            return file.isFile() && lastModified == file.lastModified() && length == file.length();
+        }
+
+        public static Archive read(File file) throws IOException
+        {
+            var lastModified = file.lastModified();
+            ByteBuffer buffer;
+            try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+                if (channel.size() > Integer.MAX_VALUE)
+                    throw new IOException("Archive is too large to map");
+                if (JsonThingsConfig.hotReload)
+                {
+                    // A mapping can't be released explicitly, and on Windows it keeps the file locked until it's garbage collected,
+                    // which would stop the pack from being replaced while the game runs. Read it into memory instead.
+                    buffer = ByteBuffer.allocate((int) channel.size());
+                    while (buffer.hasRemaining())
+                    {
+                        if (channel.read(buffer, buffer.position()) < 0)
+                            throw new IOException("Unexpected end of file");
+                    }
+                    buffer.flip();
+                    buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+                }
+                else
+                {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+
+            var archive = new Archive(buffer, lastModified, buffer.capacity());
+            archive.readCentralDirectory();
+            return archive;
+        }
+
+        private void readCentralDirectory() throws IOException
+        {
+            var end = findEndRecord();
+            int count = Short.toUnsignedInt(buffer.getShort(end + 10));
+            long directorySize = Integer.toUnsignedLong(buffer.getInt(end + 12));
+            long directoryOffset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+            if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL || directoryOffset + directorySize > end)
+                throw new IOException("Zip64 archives are not supported");
+
+            int pos = (int) directoryOffset;
+            for (int i = 0; i < count; i++)
+            {
+                if (buffer.getInt(pos) != CENTRAL_DIRECTORY_ENTRY)
+                    throw new IOException("Bad central directory entry at " + pos);
+
+                int flags = Short.toUnsignedInt(buffer.getShort(pos + 8));
+                int method = Short.toUnsignedInt(buffer.getShort(pos + 10));
+                long compressedSize = Integer.toUnsignedLong(buffer.getInt(pos + 20));
+                long size = Integer.toUnsignedLong(buffer.getInt(pos + 24));
+                int nameLength = Short.toUnsignedInt(buffer.getShort(pos + 28));
+                int extraLength = Short.toUnsignedInt(buffer.getShort(pos + 30));
+                int commentLength = Short.toUnsignedInt(buffer.getShort(pos + 32));
+                long headerOffset = Integer.toUnsignedLong(buffer.getInt(pos + 42));
+
+                var nameBytes = new byte[nameLength];
+                buffer.get(pos + 46, nameBytes);
+                var name = new String(nameBytes, StandardCharsets.UTF_8);
+                pos += 46 + nameLength + extraLength + commentLength;
+
+                if (name.endsWith("/"))
+                    continue;
+                if ((flags & FLAG_ENCRYPTED) != 0)
+                    throw new IOException("Encrypted entry " + name);
+                if (compressedSize >= Integer.MAX_VALUE || size >= Integer.MAX_VALUE || headerOffset >= Integer.MAX_VALUE)
+                    throw new IOException("Zip64 archives are not supported");
+
+                entries.put(name, new Entry((int) headerOffset, method, (int) compressedSize, (int) size));
+
+                // <type>/<namespace>/<path>
+                var firstSlash = name.indexOf('/');
+                var secondSlash = firstSlash >= 0 ? name.indexOf('/', firstSlash + 1) : -1;
+                if (secondSlash > 0)
+                    namespaces.computeIfAbsent(name.substring(0, firstSlash), k -> new HashSet<>()).add(name.substring(firstSlash + 1, secondSlash));
+            }
+        }
+
+        private int findEndRecord() throws IOException
+        {
+            int limit = Math.max(0, buffer.capacity() - END_RECORD_SIZE - MAX_COMMENT_SIZE);
+            for (int pos = buffer.capacity() - END_RECORD_SIZE; pos >= limit; pos--)
+            {
+                if (buffer.getInt(pos) == END_OF_CENTRAL_DIRECTORY)
+                    return pos;
+            }
+            throw new IOException("Not a zip file");
+        }
+
+        public InputStream open(Entry entry) throws IOException
+        {
+            int header = entry.headerOffset();
+            if (buffer.getInt(header) != LOCAL_FILE_HEADER)
+                throw new IOException("Bad local header at " + header);
+            // The local extra field can differ from the one in the central directory.
+            int dataOffset = header + 30 + Short.toUnsignedInt(buffer.getShort(header + 26)) + Short.toUnsignedInt(buffer.getShort(header + 28));
+            var data = buffer.slice(dataOffset, entry.compressedSize());
+
+            switch (entry.method())
+            {
+                case METHOD_STORED:
+                    return new ByteBufferInputStream(data);
+                case METHOD_DEFLATED:
+                    var inflater = new Inflater(true);
+                    try
+                    {
+                        inflater.setInput(data);
+                        var output = new byte[entry.size()];
+                        int read = 0;
+                        while (read < output.length && !inflater.finished())
+                        {
+                            int n = inflater.inflate(output, read, output.length - read);
+                            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                                throw new IOException("Truncated entry at " + header);
+                            read += n;
+                        }
+                        return new ByteArrayInputStream(output, 0, read);
+                    }
+                    catch (DataFormatException e)
+                    {
+                        throw new IOException("Corrupt entry at " + header, e);
+                    }
+                    finally
+                    {
+                        inflater.end();
+                    }
+                default:
+                    throw new IOException("Unsupported compression method " + entry.method() + " at " + header);
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? Byte.toUnsignedInt(buffer.get()) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.gigaherz.jsonthings.util;
+
+import net.minecraft.server.packs.FolderPackResources;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.repository.Pack;
+import net.minecraft.server.packs.repository.PackSource;
+import net.minecraft.server.packs.repository.RepositorySource;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Finds the packs in the thingpacks folder the same way as the vanilla FolderRepositorySource, including the pack ids,
+ * but opens zipped packs with {@link MappedZipPackResources}.
+ */
+public class ThingpackRepositorySource implements RepositorySource
+{
+    private static final FileFilter PACK_FILTER = file -> {
+        boolean isZip = file.isFile() && file.getName().endsWith(".zip");
+        boolean isFolder = file.isDirectory() && (new File(file, "pack.mcmeta")).isFile();
+        return isZip || isFolder;
+    };
+
+    private final File folder;
+    private final PackSource packSource;
+
+    public ThingpackRepositorySource(File folder, PackSource packSource)
+    {
+        this.folder = folder;
+        this.packSource = packSource;
+    }
+
+    @Override
+    public void loadPacks(Consumer<Pack> infoConsumer, Pack.PackConstructor infoFactory)
+    {
+        if (!folder.isDirectory())
+            folder.mkdirs();
+
+        MappedZipPackResources.pruneCache();
+
+        File[] files = folder.listFiles(PACK_FILTER);
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            Pack pack = Pack.create("file/" + file.getName(), false, createSupplier(file), infoFactory, Pack.Position.TOP, packSource);
+            if (pack != null)
+                infoConsumer.accept(pack);
+        }
+    }
+
+    private Supplier<PackResources> createSupplier(File file)
+    {
+        return file.isDirectory() ? () -> new FolderPackResources(file) : () -> MappedZipPackResources.open(file);
+    }
+}
@@ -12,38 +12,155 @@ import it.unimi.dsi.fastutil.booleans.BooleanConsumer;
 import it.unimi.dsi.fastutil.floats.FloatConsumer;
 import net.minecraft.util.GsonHelper;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.Nullable;
 import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
 import java.util.function.*;
 import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * Visits a json tree while keeping track of where in the tree each value is, for error messages.
+ * The visitors are called for every value of every thing file, so nothing is allocated until an error needs to be reported:
+ * the path is built from the parent chain only when it's used in a message, the alternative types are kept in a bitmask,
+ * and the value passed to a key or element visitor is a cursor owned by its parent, reused for the next key or element.
+ * Because of that, the values received by a visitor must not be kept after the visitor returns.
+ */
 public class JParse
         implements Any, ObjValue, ArrayValue, StringValue, FloatValue, DoubleValue, IntValue, LongValue, BooleanValue
 {
-    private final String path;
-    private final JsonElement data;
-    private final List<String> altTypes = new ArrayList<>();
-    private boolean handledType = false;
+    private static final int TYPE_OBJECT = 1;
+    private static final int TYPE_ARRAY = 1 << 1;
+    private static final int TYPE_STRING = 1 << 2;
+    private static final int TYPE_INTEGER = 1 << 3;
+    private static final int TYPE_LONG = 1 << 4;
+    private static final int TYPE_FLOAT = 1 << 5;
+    private static final int TYPE_DOUBLE = 1 << 6;
+    private static final int TYPE_BOOLEAN = 1 << 7;
+    private static final String[] TYPE_NAMES = {
+            "a Json Object", "a Json Array", "a String", "an Integer", "a Long Integer", "a Float", "a Double", "a Boolean"
+    };
+
+    @Nullable
+    private final String rootPath;
+    @Nullable
+    private final JParse parent;
+    @Nullable
+    private String keyName;
+    private int index;
+    private JsonElement data;
+    private int altTypes;
+    private boolean handledType;
+
+    @Nullable
+    private JParse cursor;
+    private boolean visiting;
 
     public JParse(String path, JsonElement data)
     {
-        this.path = path;
+        this.rootPath = path;
+        this.parent = null;
         this.data = data;
     }
 
+    private JParse(JParse parent)
+    {
+        this.rootPath = null;
+        this.parent = parent;
+    }
+
     public static Any begin(JsonElement data)
     {
         return new JParse("$", data);
     }
 
+    private JParse reset(@Nullable String keyName, int index, JsonElement data)
+    {
+        this.keyName = keyName;
+        this.index = index;
+        this.data = data;
+        this.altTypes = 0;
+        this.handledType = false;
+        return this;
+    }
+
+    /**
+     * Returns the reusable child cursor, or a new child if the cursor is still being visited
+     * (a visitor that goes back to an outer value and visits one of its keys).
+     */
+    private JParse child(@Nullable String keyName, int index, JsonElement data)
+    {
+        var child = cursor;
+        if (child == null)
+            child = cursor = new JParse(this);
+        else if (child.visiting)
+            child = new JParse(this);
+        return child.reset(keyName, index, data);
+    }
+
+    private String path()
+    {
+        if (parent == null)
+            return Objects.requireNonNull(rootPath);
+        var builder = new StringBuilder();
+        appendPath(builder);
+        return builder.toString();
+    }
+
+    private void appendPath(StringBuilder builder)
+    {
+        if (parent == null)
+        {
+            builder.append(rootPath);
+            return;
+        }
+        parent.appendPath(builder);
+        if (keyName != null)
+            appendName(builder, keyName);
+        else
+            builder.append('[').append(index).append(']');
+    }
+
+    private static void appendName(StringBuilder builder, String keyName)
+    {
+        if (SIMPLE_IDENT.matcher(keyName).matches())
+            builder.append('.').append(keyName);
+        else
+            builder.append("[\"").append(keyName.replace("\"", "\\\"")).append("\"]");
+    }
+
+    private String childPath(@Nullable String keyName, int index)
+    {
+        var builder = new StringBuilder();
+        appendPath(builder);
+        if (keyName != null)
+            appendName(builder, keyName);
+        else
+            builder.append('[').append(index).append(']');
+        return builder.toString();
+    }
+
+    private void visitChild(@Nullable String keyName, JsonElement value, Consumer<Any> visitor)
+    {
+        var child = child(keyName, -1, value);
+        child.visiting = true;
+        try
+        {
+            visitor.accept(child);
+        }
+        finally
+        {
+            child.visiting = false;
+        }
+    }
+
     private String formatAltTypes(String and)
     {
-        if (altTypes.size() > 0)
+        if (altTypes != 0)
         {
-            return String.join(", ", altTypes) + ", or " + and;
+            return joinAltTypes() + ", or " + and;
         }
 
         return and;
@@ -51,20 +168,51 @@ public class JParse
 
     private String formatAltTypes()
     {
-        if (altTypes.size() > 0)
+        if (altTypes != 0)
         {
-            return String.join(", ", altTypes);
+            return joinAltTypes();
         }
 
         throw new RuntimeException("IMPLEMENTATION ERROR: typeError() called without having used any ifType() methods!");
     }
 
+    private String joinAltTypes()
+    {
+        var joiner = new StringJoiner(", ");
+        for (int i = 0; i < TYPE_NAMES.length; i++)
+        {
+            if ((altTypes & (1 << i)) != 0)
+                joiner.add(TYPE_NAMES[i]);
+        }
+        return joiner.toString();
+    }
+
+    private <T> Any ifType(int type, boolean matches, Consumer<T> visitor, T value)
+    {
+        altTypes |= type;
+        if (matches)
+        {
+            handledType = true;
+            try
+            {
+                visitor.accept(value);
+            }
+            catch (Exception e)
+            {
+                if (e instanceof JParseException)
+                    throw e;
+                throw new JParseException("Error running visitor for " + path(), e);
+            }
+        }
+        return this;
+    }
+
     @Override
     public ObjValue obj()
     {
         if (!data.isJsonObject())
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Json Object"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Json Object"));
         }
         return this;
     }
@@ -74,7 +222,7 @@ public class JParse
     {
         if (!data.isJsonArray())
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Json Array"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Json Array"));
         }
         return this;
     }
@@ -84,7 +232,7 @@ public class JParse
     {
         if (!GsonHelper.isStringValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a String"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a String"));
         }
         return this;
     }
@@ -94,7 +242,7 @@ public class JParse
     {
         if (!GsonHelper.isNumberValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("an Integer"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("an Integer"));
         }
         return this;
     }
@@ -104,7 +252,7 @@ public class JParse
     {
         if (!GsonHelper.isNumberValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Long Integer"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Long Integer"));
         }
         return this;
     }
@@ -114,7 +262,7 @@ public class JParse
     {
         if (!GsonHelper.isNumberValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Float"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Float"));
         }
         return this;
     }
@@ -124,7 +272,7 @@ public class JParse
     {
         if (!GsonHelper.isNumberValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Double"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Double"));
         }
         return this;
     }
@@ -134,7 +282,7 @@ public class JParse
     {
         if (!GsonHelper.isBooleanValue(data))
         {
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes("a Boolean"));
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes("a Boolean"));
         }
         return this;
     }
@@ -143,175 +291,55 @@ public class JParse
     public void typeError()
     {
         if (!handledType)
-            throw new JParseException("Value at '" + path + "' must be " + formatAltTypes());
+            throw new JParseException("Value at '" + path() + "' must be " + formatAltTypes());
     }
 
     @Override
     public Any ifObj(Consumer<ObjValue> visitor)
     {
-        altTypes.add("a Json Object");
-        if (data.isJsonObject())
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_OBJECT, data.isJsonObject(), visitor, this);
     }
 
     @Override
     public Any ifArray(Consumer<ArrayValue> visitor)
     {
-        altTypes.add("a Json Array");
-        if (data.isJsonArray())
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_ARRAY, data.isJsonArray(), visitor, this);
     }
 
     @Override
     public Any ifString(Consumer<StringValue> visitor)
     {
-        altTypes.add("aString");
-        if (GsonHelper.isStringValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_STRING, GsonHelper.isStringValue(data), visitor, this);
     }
 
     @Override
     public Any ifInteger(Consumer<IntValue> visitor)
     {
-        altTypes.add("an Integer");
-        if (GsonHelper.isNumberValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_INTEGER, GsonHelper.isNumberValue(data), visitor, this);
     }
 
     @Override
     public Any ifLong(Consumer<LongValue> visitor)
     {
-        altTypes.add("a Long Integer");
-        if (GsonHelper.isNumberValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_LONG, GsonHelper.isNumberValue(data), visitor, this);
     }
 
     @Override
     public Any ifFloat(Consumer<FloatValue> visitor)
     {
-        altTypes.add("a Float");
-        if (GsonHelper.isNumberValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_FLOAT, GsonHelper.isNumberValue(data), visitor, this);
     }
 
     @Override
     public Any ifDouble(Consumer<DoubleValue> visitor)
     {
-        altTypes.add("a Double");
-        if (GsonHelper.isNumberValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_DOUBLE, GsonHelper.isNumberValue(data), visitor, this);
     }
 
     @Override
     public Any ifBool(Consumer<BooleanValue> visitor)
     {
-        altTypes.add("a Boolean");
-        if (GsonHelper.isBooleanValue(data))
-        {
-            handledType = true;
-            try
-            {
-                visitor.accept(this);
-            }
-            catch (Exception e)
-            {
-                if (e instanceof JParseException)
-                    throw e;
-                throw new JParseException("Error running visitor for " + path, e);
-            }
-        }
-        return this;
+        return ifType(TYPE_BOOLEAN, GsonHelper.isBooleanValue(data), visitor, this);
     }
 
     @Override
@@ -330,18 +358,18 @@ public class JParse
     public ObjValue key(String keyName, Consumer<Any> visitor)
     {
         var obj = getAsJsonObject();
-        if (!obj.has(keyName))
+        var value = obj.get(keyName);
+        if (value == null)
         {
-            throw new JParseException("Json Object at '" + path + "' must contain a key with name '" + keyName + "'.");
+            throw new JParseException("Json Object at '" + path() + "' must contain a key with name '" + keyName + "'.");
         }
-        var keyPath = path + wrapName(keyName);
         try
         {
-            visitor.accept(new JParse(keyPath, obj.get(keyName)));
+            visitChild(keyName, value, visitor);
         }
         catch (Exception e)
         {
-            throw new RuntimeException("Error running visitor for " + keyPath);
+            throw new RuntimeException("Error running visitor for " + childPath(keyName, -1));
         }
         return this;
     }
@@ -350,18 +378,18 @@ public class JParse
     public ObjValue ifKey(String keyName, Consumer<Any> visitor)
     {
         var obj = getAsJsonObject();
-        if (obj.has(keyName))
+        var value = obj.get(keyName);
+        if (value != null)
         {
-            var keyPath = path + wrapName(keyName);
             try
             {
-                visitor.accept(new JParse(keyPath, obj.get(keyName)));
+                visitChild(keyName, value, visitor);
             }
             catch (Exception e)
             {
                 if (e instanceof JParseException)
                     throw e;
-                throw new JParseException("Error running visitor for " + keyPath, e);
+                throw new JParseException("Error running visitor for " + childPath(keyName, -1), e);
             }
         }
         return this;
@@ -374,8 +402,16 @@ public class JParse
         for (Map.Entry<String, JsonElement> entry : obj.entrySet())
         {
             var keyName = entry.getKey();
-            var keyPath = path + wrapName(keyName);
-            visitor.accept(keyName, new JParse(keyPath, entry.getValue()));
+            var child = child(keyName, -1, entry.getValue());
+            child.visiting = true;
+            try
+            {
+                visitor.accept(keyName, child);
+            }
+            finally
+            {
+                child.visiting = false;
+            }
         }
     }
 
@@ -393,13 +429,6 @@ public class JParse
 
     private static final Pattern SIMPLE_IDENT = Pattern.compile("^[a-zA-Z0-9_]+$");
 
-    private String wrapName(String keyName)
-    {
-        if (SIMPLE_IDENT.matcher(keyName).matches())
-            return "." + keyName;
-        return "[\"" + keyName.replace("\"", "\\\"") + "\"]";
-    }
-
     @Override
     public void raw(JsonObjectConsumer value)
     {
@@ -411,7 +440,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -421,58 +450,42 @@ public class JParse
         var arr = getAsJsonArray();
         for (int i = 0; i < arr.size(); i++)
         {
-            var entryPath = path + "[" + i + "]";
+            var child = child(null, i, arr.get(i));
+            child.visiting = true;
             try
             {
-                visitor.accept(i, new JParse(entryPath, arr.get(i)));
+                visitor.accept(i, child);
             }
             catch (Exception e)
             {
                 if (e instanceof JParseException)
                     throw e;
-                throw new JParseException("Error running visitor for " + entryPath, e);
+                throw new JParseException("Error running visitor for " + childPath(null, i), e);
+            }
+            finally
+            {
+                child.visiting = false;
             }
         }
     }
 
+    // The elements of a stream can be held onto by the collector, so they each get their own instance.
+    private Stream<Any> elements()
+    {
+        var arr = getAsJsonArray();
+        return IntStream.range(0, arr.size()).mapToObj(i -> new JParse(this).reset(null, i, arr.get(i)));
+    }
+
     @Override
     public void collect(Consumer<Stream<Any>> collector)
     {
-        var arr = getAsJsonArray();
-        collector.accept(IntStream.range(0, arr.size())
-                .mapToObj(i -> {
-                    var entryPath = path + "[" + i + "]";
-                    try
-                    {
-                        return new JParse(entryPath, arr.get(i));
-                    }
-                    catch (Exception e)
-                    {
-                        if (e instanceof JParseException)
-                            throw e;
-                        throw new JParseException("Error running visitor for " + entryPath, e);
-                    }
-                }));
+        collector.accept(elements());
     }
 
     @Override
     public <T> T flatMap(Function<Stream<Any>, T> collector)
     {
-        var arr = getAsJsonArray();
-        return collector.apply(IntStream.range(0, arr.size())
-                .mapToObj(i -> {
-                    var entryPath = path + "[" + i + "]";
-                    try
-                    {
-                        return new JParse(entryPath, arr.get(i));
-                    }
-                    catch (Exception e)
-                    {
-                        if (e instanceof JParseException)
-                            throw e;
-                        throw new JParseException("Error running visitor for " + entryPath, e);
-                    }
-                }));
+        return collector.apply(elements());
     }
 
     @Override
@@ -486,7 +499,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -496,7 +509,7 @@ public class JParse
         var arr = getAsJsonArray();
         if (arr.size() == 0)
         {
-            throw new JParseException("Json Array at '" + path + "' must not be empty.");
+            throw new JParseException("Json Array at '" + path() + "' must not be empty.");
         }
         return this;
     }
@@ -507,7 +520,7 @@ public class JParse
         var arr = getAsJsonArray();
         if (arr.size() < min)
         {
-            throw new JParseException("Json Array at '" + path + "' must contain at least " + min + ".");
+            throw new JParseException("Json Array at '" + path() + "' must contain at least " + min + ".");
         }
         return this;
     }
@@ -518,7 +531,7 @@ public class JParse
         var arr = getAsJsonArray();
         if (arr.size() < min)
         {
-            throw new JParseException("Json Array at '" + path + "' must contain at least " + min + ".");
+            throw new JParseException("Json Array at '" + path() + "' must contain at least " + min + ".");
         }
         return this;
     }
@@ -540,7 +553,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -562,7 +575,7 @@ public class JParse
         var val = getAsFloat();
         if (val < min)
         {
-            throw new JParseException("Value at '" + path + "' must be " + min + " or bigger.");
+            throw new JParseException("Value at '" + path() + "' must be " + min + " or bigger.");
         }
         return this;
     }
@@ -573,7 +586,7 @@ public class JParse
         var val = getAsFloat();
         if (val < min || val >= maxExclusive)
         {
-            throw new JParseException("Value at '" + path + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
+            throw new JParseException("Value at '" + path() + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
         }
         return this;
     }
@@ -595,7 +608,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -605,7 +618,7 @@ public class JParse
         var val = getAsDouble();
         if (val < min)
         {
-            throw new JParseException("Value at '" + path + "' must be " + min + " or bigger.");
+            throw new JParseException("Value at '" + path() + "' must be " + min + " or bigger.");
         }
         return this;
     }
@@ -616,7 +629,7 @@ public class JParse
         var val = getAsDouble();
         if (val < min || val >= maxExclusive)
         {
-            throw new JParseException("Value at '" + path + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
+            throw new JParseException("Value at '" + path() + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
         }
         return this;
     }
@@ -638,7 +651,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -648,7 +661,7 @@ public class JParse
         var val = getAsInt();
         if (val < min)
         {
-            throw new JParseException("Value at '" + path + "' must be " + min + " or bigger.");
+            throw new JParseException("Value at '" + path() + "' must be " + min + " or bigger.");
         }
         return this;
     }
@@ -659,7 +672,7 @@ public class JParse
         var val = data.getAsJsonPrimitive().getAsInt();
         if (val < min || val >= maxExclusive)
         {
-            throw new JParseException("Value at '" + path + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
+            throw new JParseException("Value at '" + path() + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
         }
         return this;
     }
@@ -681,7 +694,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -702,7 +715,7 @@ public class JParse
         {
             if (e instanceof JParseException)
                 throw e;
-            throw new JParseException("Error running handler for " + path, e);
+            throw new JParseException("Error running handler for " + path(), e);
         }
     }
 
@@ -712,7 +725,7 @@ public class JParse
         var val = getAsLong();
         if (val < min)
         {
-            throw new JParseException("Value at '" + path + "' must be " + min + " or bigger.");
+            throw new JParseException("Value at '" + path() + "' must be " + min + " or bigger.");
         }
         return this;
     }
@@ -723,7 +736,7 @@ public class JParse
         var val = getAsLong();
         if (val < min || val >= maxExclusive)
         {
-            throw new JParseException("Value at '" + path + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
+            throw new JParseException("Value at '" + path() + "' must be betwee " + min + " and " + maxExclusive + " (exclusive).");
         }
         return this;
     }